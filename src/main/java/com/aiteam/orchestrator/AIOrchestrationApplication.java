@@ -1,9 +1,23 @@
 package com.aiteam.orchestrator;
 
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Consumer;
 
 /**
  * AI外包公司系统主应用
@@ -11,6 +25,8 @@ import org.springframework.ai.chat.client.ChatClient;
 @SpringBootApplication
 public class AIOrchestrationApplication {
 
+    private static final String STATE_INVALIDATION_CHANNEL = "project:state:invalidate";
+
     public static void main(String[] args) {
         SpringApplication.run(AIOrchestrationApplication.class, args);
     }
@@ -24,11 +40,59 @@ public class AIOrchestrationApplication {
     }
 
     /**
-     * 创建默认的项目状态仓库实现
+     * 按配置创建项目状态仓库实现：REDIS保存为Redis Hash，DATABASE通过JPA保存到数据库，JOURNAL追加到本地日志文件
+     * 启用近端缓存时在外层包装缓存，多节点存储在保存后通过Redis频道通知其他节点
+     */
+    @Bean
+    @Primary
+    public ProjectStateRepository projectStateRepository(OrchestratorProperties properties,
+                                                         StringRedisTemplate redisTemplate,
+                                                         EntityManager entityManager,
+                                                         PlatformTransactionManager transactionManager,
+                                                         ObjectProvider<JournalProjectStateRepository> journal) {
+        ProjectStateRepository repository = switch (properties.getStateStore()) {
+            case DATABASE -> new DatabaseProjectStateRepository(entityManager, transactionManager);
+            case JOURNAL -> journal.getObject();
+            case REDIS -> new RedisProjectStateRepository(redisTemplate);
+        };
+        if (!properties.isStateCacheEnabled()) {
+            return repository;
+        }
+        // 本地日志只在单节点使用，不需要通知其他节点
+        Consumer<String> invalidationPublisher = properties.getStateStore() == OrchestratorProperties.StateStore.JOURNAL
+            ? message -> { }
+            : message -> redisTemplate.convertAndSend(STATE_INVALIDATION_CHANNEL, message);
+        return new CachingProjectStateRepository(repository, properties.getStateCacheMaxSize(),
+            properties.getStateCacheTtl(), invalidationPublisher);
+    }
+
+    /**
+     * 本地日志仓库，单独注册为Bean以便应用关闭时落盘并关闭日志
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "agentcorp.orchestrator", name = "state-store", havingValue = "JOURNAL")
+    public JournalProjectStateRepository journalProjectStateRepository(OrchestratorProperties properties) {
+        return new JournalProjectStateRepository(Path.of(properties.getStateJournalDir()),
+            properties.getStateJournalSegmentSize(), properties.getStateJournalSnapshotRecords(),
+            properties.getStateJournalSnapshotInterval());
+    }
+
+    /**
+     * 订阅其他节点发出的项目状态缓存通知（加载和失效）
      */
     @Bean
-    public ProjectStateRepository projectStateRepository() {
-        return new RedisProjectStateRepository();
+    public RedisMessageListenerContainer stateInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   ProjectStateRepository repository,
+                                                                   OrchestratorProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (repository instanceof CachingProjectStateRepository cache
+                && properties.getStateStore() != OrchestratorProperties.StateStore.JOURNAL) {
+            container.addMessageListener(
+                (message, pattern) -> cache.onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(STATE_INVALIDATION_CHANNEL));
+        }
+        return container;
     }
 
     /**
@@ -1,10 +1,27 @@
 package com.aiteam.orchestrator;
 
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -13,25 +30,60 @@ import java.util.stream.Collectors;
 @Service
 public class AgentOrchestrator {
 
-    private final Map<String, RoleBasedAgent> agents;
+    private final Map<String, AgentPool> agentPools;   // 代理类型 -> 实例池
+    private final Map<String, AgentPool> rolePools;    // 角色 -> 所属类型的实例池
     private final ProjectStateRepository stateRepository;
     private final AgentRepository agentRepository;
-
-    public AgentOrchestrator(ProjectStateRepository stateRepository, AgentRepository agentRepository) {
+    private final OrchestratorProperties properties;
+    private final FairShareScheduler scheduler;
+    private final ScheduledThreadPoolExecutor timer;   // 重试退避、执行超时和对冲共用的单个定时线程
+    private final HedgePolicy hedgePolicy;
+    private final StateFlusher stateFlusher;          // 状态增量的合并提交
+    private final Map<String, ProjectRun> activeRuns = new HashMap<>();   // 受自身锁保护
+    private final Set<String> queuedRuns = new HashSet<>();               // 已提交尚未开始执行的项目，受activeRuns锁保护
+    private final Set<String> cancelRequests = new HashSet<>();           // 受activeRuns锁保护
+
+    public AgentOrchestrator(ProjectStateRepository stateRepository, AgentRepository agentRepository,
+                             OrchestratorProperties properties, FairShareScheduler scheduler) {
         this.stateRepository = stateRepository;
         this.agentRepository = agentRepository;
-        this.agents = new ConcurrentHashMap<>();
+        this.properties = properties;
+        this.scheduler = scheduler;
+        this.agentPools = new ConcurrentHashMap<>();
+        this.rolePools = new ConcurrentHashMap<>();
+        this.hedgePolicy = new HedgePolicy(properties);
+        this.stateFlusher = new StateFlusher(stateRepository, properties.getStateFlushInterval());
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "orchestrator-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 绝大多数超时计时会在任务正常结束时取消，取消后立即移出队列
+        this.timer.setRemoveOnCancelPolicy(true);
         initializeAgents();
     }
 
+    /**
+     * 关闭定时线程，保存尚未保存的状态修改
+     */
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        stateFlusher.shutdown();
+    }
+
     /**
      * 初始化所有角色代理
+     * 同一代理类型的角色共享一个实例池，池大小由agent-pool-size和agent-pool-sizes配置
      */
     private void initializeAgents() {
         // 从数据库加载所有可用的代理
         List<Agent> availableAgents = agentRepository.findAll();
         for (Agent agent : availableAgents) {
-            agents.put(agent.getRoleName(), agent.getAgentInstance());
+            AgentPool pool = agentPools.computeIfAbsent(agent.getAgentType(), type -> new AgentPool(type,
+                properties.getAgentPoolSizes().getOrDefault(type, properties.getAgentPoolSize()),
+                agent::getAgentInstance));
+            rolePools.put(agent.getRoleName(), pool);
         }
     }
 
@@ -39,126 +91,654 @@ public class AgentOrchestrator {
      * 执行项目计划
      */
     public void executeProject(ProjectPlan projectPlan) {
-        ProjectState state = new ProjectState(projectPlan.getProjectId());
-        projectPlan.getTasks().forEach(state::addTask);
+        executeProject(projectPlan, createProjectState(projectPlan));
+    }
 
+    /**
+     * 使用调用方提供的状态对象执行项目计划，调用方可在执行期间读取该状态获取进度
+     */
+    public void executeProject(ProjectPlan projectPlan, ProjectState state) {
         // 保存初始状态
-        state.saveToDatabase();
+        stateFlusher.schedule(state);
 
         try {
-            executeTasks(projectPlan, state);
+            executeTasks(projectPlan, state, false);
         } catch (Exception e) {
             throw new OrchestratorException("Project execution failed: " + e.getMessage(), e);
+        } finally {
+            stateFlusher.flush(state);
         }
     }
 
+    /**
+     * 根据项目计划创建初始状态
+     */
+    public ProjectState createProjectState(ProjectPlan projectPlan) {
+        ProjectState state = new ProjectState(projectPlan.getProjectId());
+        projectPlan.getTasks().forEach(state::addTask);
+        return state;
+    }
+
     /**
      * 执行任务列表
+     * 由依赖追踪器维护就绪队列，任务完成后只通知其直接后继任务，
+     * 每次完成的调度开销与后继任务数量成正比，而不是与计划规模成正比
+     * @param resume 断点续传：占用执行权之后把上次执行遗留的RUNNING任务恢复为派发前的状态
+     */
+    private void executeTasks(ProjectPlan projectPlan, ProjectState state, boolean resume) {
+        String projectId = state.getProjectId();
+        ProjectRun run = new ProjectRun(projectPlan, state);
+
+        synchronized (activeRuns) {
+            if (activeRuns.putIfAbsent(projectId, run) != null) {
+                throw new OrchestratorException("Project is already executing: " + projectId);
+            }
+            queuedRuns.remove(projectId);
+            if (cancelRequests.remove(projectId)) {
+                run.cancel();
+            }
+        }
+
+        try {
+            if (resume) {
+                // 项目没有其他执行，RUNNING任务都是上次执行被取消或中断时遗留的
+                state.getStatusMap().forEach((taskId, status) -> {
+                    if (status == Task.TaskStatus.RUNNING) {
+                        state.resetTask(taskId);
+                    }
+                });
+            }
+            run.execute();
+        } finally {
+            synchronized (activeRuns) {
+                activeRuns.remove(projectId);
+            }
+            // 取消的项目可以断点续传，保留其权重
+            if (!run.cancelled) {
+                scheduler.clearWeight(projectId);
+            }
+        }
+    }
+
+    /**
+     * 登记已提交、尚未开始执行的项目，执行开始前收到的取消请求会在执行开始后生效
      */
-    private void executeTasks(ProjectPlan projectPlan, ProjectState state) {
-        boolean hasChanges = true;
+    public void queueExecution(String projectId) {
+        synchronized (activeRuns) {
+            queuedRuns.add(projectId);
+        }
+    }
+
+    /**
+     * 取消项目执行：停止派发新任务，中断执行中的代理调用，
+     * 在cancel-grace-period内等待被中断的调用退出后返回，执行中的任务回到可续传的状态
+     * 项目已登记但尚未开始执行时记录取消请求，执行开始后立即取消；项目既不在执行也没有登记时忽略
+     */
+    public void cancelExecution(String projectId) {
+        synchronized (activeRuns) {
+            ProjectRun run = activeRuns.get(projectId);
+            if (run != null) {
+                run.cancel();
+            } else if (queuedRuns.contains(projectId)) {
+                cancelRequests.add(projectId);
+            }
+        }
+    }
 
-        while (hasChanges && !state.isProjectCompleted() && !state.hasFailedTasks()) {
-            hasChanges = false;
+    /**
+     * 清除项目的排队登记和尚未被执行消费的取消请求，调用方在执行结束后调用
+     */
+    public void clearCancelRequest(String projectId) {
+        synchronized (activeRuns) {
+            queuedRuns.remove(projectId);
+            cancelRequests.remove(projectId);
+        }
+    }
 
-            // 获取所有待执行的任务
-            List<Task> executableTasks = projectPlan.getTasks().stream()
-                .filter(task -> state.canExecuteTask(task.getId()))
-                .filter(task -> state.getTaskStatus(task.getId()) == Task.TaskStatus.PENDING)
-                .collect(Collectors.toList());
+    /**
+     * 按配置的调度策略创建依赖追踪器
+     */
+    private DependencyTracker createTracker(ProjectPlan projectPlan, ProjectState state) {
+        if (properties.getSchedulingPolicy() == OrchestratorProperties.SchedulingPolicy.FIFO) {
+            return new DependencyTracker(projectPlan, state);
+        }
+        CriticalPathRanker ranker = new CriticalPathRanker(
+            properties.getRoleDurationEstimates(), properties.getDefaultTaskDuration());
+        return new DependencyTracker(projectPlan, state, ranker.rank(projectPlan));
+    }
 
-            // 执行可执行的任务
-            for (Task task : executableTasks) {
-                if (executeTask(task, state)) {
-                    hasChanges = true;
+    /**
+     * 单个项目的一次执行
+     * 项目状态只在调度线程上修改，工作线程、定时线程和取消请求都通过事件队列通知调度线程
+     */
+    private class ProjectRun {
+
+        private final ProjectPlan projectPlan;
+        private final ProjectState state;
+        private DependencyTracker tracker;   // 开始执行时按当时的任务状态创建
+        private final boolean parallel;
+        private final int maxInFlight;
+        private final BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        private final Map<String, RunningTask> inFlight = new HashMap<>();                // 执行中的任务
+        private final Map<String, ScheduledFuture<?>> pendingRetries = new HashMap<>();   // 等待退避结束的任务
+        private final Map<String, Batch> openBatches = new HashMap<>();                   // 角色 -> 正在收集任务的批次
+        private int batchedTasks;   // 执行中的任务里属于批次的任务数
+        private int batchCount;     // 尚未全部结束的批次数
+        private volatile TaskAttempt inlineAttempt;   // 顺序模式下正在调用线程上执行的尝试
+        private boolean cancelled;
+
+        ProjectRun(ProjectPlan projectPlan, ProjectState state) {
+            this.projectPlan = projectPlan;
+            this.state = state;
+            this.parallel = properties.getExecutionMode() == OrchestratorProperties.ExecutionMode.PARALLEL;
+            // 单个项目最多向调度器提交与工作线程数相同的任务，其余任务留在就绪队列中按优先级等待
+            this.maxInFlight = parallel ? scheduler.getCapacity() : 1;
+        }
+
+        void execute() {
+            tracker = createTracker(projectPlan, state);
+            while (true) {
+                // 出现最终失败或已取消后不再派发新任务，只等待执行中的任务结束
+                // 同一批次的任务只占用一个派发名额
+                while (!cancelled && !state.hasFailedTasks() && inFlight.size() - batchedTasks + batchCount < maxInFlight
+                       && tracker.hasReady()) {
+                    dispatch(state.getTask(tracker.pollReady()));
+                }
+
+                if (inFlight.isEmpty() && pendingRetries.isEmpty()) {
+                    break;
+                }
+
+                TaskEvent event = awaitEvent(events);
+                Task task = event.task;
+
+                switch (event.type) {
+                    case SUCCEEDED -> {
+                        RunningTask running = inFlight.get(task.getId());
+                        if (running == null || !running.attempts.contains(event.attempt)) {
+                            continue;
+                        }
+                        finish(task.getId(), running, event.attempt);
+                        state.completeTask(task.getId());
+                        tracker.onCompleted(task.getId());
+                        System.out.println("Task completed: " + task.getId() + " (" + task.getRole() + ")");
+                    }
+                    case FAILED, TIMED_OUT -> {
+                        RunningTask running = inFlight.get(task.getId());
+                        if (running == null || !running.attempts.remove(event.attempt)) {
+                            continue;
+                        }
+                        if (event.type == TaskEvent.Type.TIMED_OUT) {
+                            System.out.println("Task timed out: " + task.getId() + " (" + task.getRole() + ")");
+                        }
+                        if (!running.attempts.isEmpty()) {
+                            // 另一次尝试仍在执行，以它的结果为准
+                            continue;
+                        }
+                        finish(task.getId(), running, null);
+                        long delay = handleTaskFailure(task, state);
+                        if (delay >= 0) {
+                            // 退避期间不占用工作线程，到期后由定时线程通知调度线程重新入队
+                            pendingRetries.put(task.getId(),
+                                timer.schedule(() -> events.add(TaskEvent.retryDue(task)), delay, TimeUnit.MILLISECONDS));
+                        } else {
+                            // 出现最终失败后项目不会再派发任务，取消所有等待中的重试
+                            cancelPendingRetries();
+                        }
+                    }
+                    case RETRY_DUE -> {
+                        if (pendingRetries.remove(task.getId()) != null) {
+                            tracker.requeue(task.getId());
+                        }
+                    }
+                    case HEDGE_DUE -> {
+                        if (!startHedge(task)) {
+                            continue;
+                        }
+                    }
+                    case BATCH_DUE -> {
+                        Batch batch = openBatches.get(task.getRole());
+                        if (batch == null || batch.tasks.get(0) != task) {
+                            continue;
+                        }
+                        flush(batch);
+                    }
+                    case CANCELLED -> preempt();
                 }
+
+                // 修改由后台按间隔合并保存，不在每个事件后写入
+                stateFlusher.schedule(state);
+            }
+        }
+
+        /**
+         * 请求取消，可在任意线程调用
+         */
+        void cancel() {
+            // 顺序模式下调度线程自身正在执行代理调用，直接中断才能让它回到事件循环
+            TaskAttempt current = inlineAttempt;
+            if (current != null) {
+                current.abort();
             }
+            events.add(TaskEvent.cancelled());
+        }
 
-            // 如果有失败的任务，尝试重试
-            if (!state.hasFailedTasks()) {
-                hasChanges = tryRetryFailedTasks(projectPlan, state);
+        /**
+         * 派发任务：并行模式提交到多项目公平调度器，由调度器在工作线程和角色额度允许时执行；
+         * 顺序模式下在调用线程上执行
+         */
+        private void dispatch(Task task) {
+            // 只有完成 PENDING/RETRYING -> RUNNING 转换的一方可以派发，保证任务只被执行一次
+            if (!state.startTask(task.getId())) {
+                System.out.println("Task not dispatchable, skipped: " + task.getId() + " (" + state.getTaskStatus(task.getId()) + ")");
+                return;
+            }
+            TaskAttempt attempt = new TaskAttempt();
+            RunningTask running = new RunningTask(attempt);
+            inFlight.put(task.getId(), running);
+            AgentPool pool = rolePools.get(task.getRole());
+
+            if (parallel && pool != null && batchLimit(pool) > 1) {
+                addToBatch(task, running, pool);
+            } else if (parallel) {
+                // 对冲计时从主尝试真正开始执行时算起，不包含在调度器中排队的时间
+                long hedgeDelay = hedgePolicy.isEnabled() ? hedgePolicy.hedgeDelay(task.getRole()) : -1;
+                submit(task, () -> {
+                    if (hedgeDelay >= 0 && !attempt.isSettled()) {
+                        running.hedgeTimer = timer.schedule(
+                            () -> events.add(TaskEvent.hedgeDue(task)), hedgeDelay, TimeUnit.MILLISECONDS);
+                    }
+                    return runAttempt(task, attempt, pool, null, events);
+                });
+            } else {
+                inlineAttempt = attempt;
+                try {
+                    // 异步代理在调用线程上等待结果；取消时结果被cancel，等待随之结束
+                    runAttempt(task, attempt, pool, null, events).join();
+                } finally {
+                    inlineAttempt = null;
+                }
             }
+        }
 
-            // 保存状态
-            if (hasChanges) {
-                state.saveToDatabase();
+        /**
+         * 把任务加入该角色正在收集的批次，批次满或收集窗口结束时整批派发
+         */
+        private void addToBatch(Task task, RunningTask running, AgentPool pool) {
+            Batch batch = openBatches.get(task.getRole());
+            if (batch == null) {
+                batch = new Batch(pool);
+                openBatches.put(task.getRole(), batch);
+                batchCount++;
+                batch.windowTimer = timer.schedule(
+                    () -> events.add(TaskEvent.batchDue(task)), properties.getBatchWindow(), TimeUnit.MILLISECONDS);
             }
+            batch.tasks.add(task);
+            batch.attempts.add(running.attempts.get(0));
+            batch.remaining++;
+            running.batch = batch;
+            batchedTasks++;
+
+            if (batch.tasks.size() >= batchLimit(pool)) {
+                flush(batch);
+            }
+        }
+
+        /**
+         * 结束批次收集，作为一个调度单元提交，占用一个工作槽位和一个角色额度
+         */
+        private void flush(Batch batch) {
+            Task first = batch.tasks.get(0);
+            openBatches.remove(first.getRole(), batch);
+            batch.windowTimer.cancel(false);
+            submit(first, () -> runBatch(batch.tasks, batch.attempts, batch.pool, events));
+            System.out.println("Batch dispatched: " + first.getRole() + " (" + batch.tasks.size() + " tasks)");
+        }
+
+        private void submit(Task task, Supplier<CompletableFuture<Void>> work) {
+            long cost = properties.getRoleDurationEstimates().getOrDefault(task.getRole(), properties.getDefaultTaskDuration());
+            scheduler.submitAsync(state.getProjectId(), task.getRole(), cost, work);
+        }
+
+        /**
+         * 主尝试执行超过角色p95耗时仍未结束，在另一个代理实例上启动对冲尝试
+         * @return 是否启动了对冲尝试
+         */
+        private boolean startHedge(Task task) {
+            RunningTask running = inFlight.get(task.getId());
+            if (cancelled || running == null || running.hedged || running.attempts.size() != 1) {
+                return false;
+            }
+            // 对冲必须在另一个代理实例上执行
+            AgentPool pool = rolePools.get(task.getRole());
+            if (pool == null || pool.size() < 2 || !hedgePolicy.tryAcquireHedge(task.getRole())) {
+                return false;
+            }
+
+            TaskAttempt primary = running.attempts.get(0);
+            TaskAttempt hedge = new TaskAttempt();
+            running.hedged = true;
+            running.attempts.add(hedge);
+            submit(task, () -> runAttempt(task, hedge, pool, primary.getAgent(), events));
+            System.out.println("Task hedged: " + task.getId() + " (" + task.getRole() + ")");
+            return true;
+        }
+
+        /**
+         * 任务得到最终结果：移出执行中列表，取消对冲计时，中断落后的尝试
+         */
+        private void finish(String taskId, RunningTask running, TaskAttempt winner) {
+            inFlight.remove(taskId);
+            if (running.batch != null) {
+                batchedTasks--;
+                if (--running.batch.remaining == 0) {
+                    batchCount--;
+                }
+            }
+            ScheduledFuture<?> hedgeTimer = running.hedgeTimer;
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            for (TaskAttempt attempt : running.attempts) {
+                if (attempt != winner) {
+                    attempt.abort();
+                }
+            }
+        }
+
+        /**
+         * 取消项目：中断所有执行中的尝试，丢弃等待退避的重试，
+         * 被中断的任务恢复为派发前的状态（PENDING或RETRYING），之后可通过resumeExecution继续执行
+         */
+        private void preempt() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelPendingRetries();
+            // 尚未派发的批次直接丢弃，其中的任务在下面随执行中任务一起恢复状态
+            openBatches.values().forEach(batch -> batch.windowTimer.cancel(false));
+            openBatches.clear();
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getCancelGracePeriod());
+            List<TaskAttempt> aborted = new ArrayList<>();
+            for (String taskId : new ArrayList<>(inFlight.keySet())) {
+                RunningTask running = inFlight.get(taskId);
+                aborted.addAll(running.attempts);
+                finish(taskId, running, null);
+                state.resetTask(taskId);
+            }
+
+            // 排队中尚未开始的尝试会在开始时发现已被放弃，直接归还工作线程
+            for (TaskAttempt attempt : aborted) {
+                if (!awaitEnd(attempt, deadline)) {
+                    System.out.println("Agent call did not stop within grace period: " + state.getProjectId());
+                    break;
+                }
+            }
+            System.out.println("Project cancelled: " + state.getProjectId() + " (" + aborted.size() + " attempts preempted)");
+        }
+
+        private void cancelPendingRetries() {
+            pendingRetries.values().forEach(future -> future.cancel(false));
+            pendingRetries.clear();
         }
     }
 
     /**
-     * 执行单个任务
+     * 执行中的任务：主尝试和可能的一次对冲尝试，先成功的一方为准
      */
-    private boolean executeTask(Task task, ProjectState state) {
+    private static class RunningTask {
+        private final List<TaskAttempt> attempts = new ArrayList<>(2);
+        private volatile ScheduledFuture<?> hedgeTimer;   // 由工作线程在主尝试开始时设置
+        private boolean hedged;
+        private Batch batch;                              // 所属批次，不属于批次时为null
+
+        RunningTask(TaskAttempt primary) {
+            attempts.add(primary);
+        }
+    }
+
+    /**
+     * 同一项目中同一角色的一批任务，通过一次代理调用执行
+     */
+    private static class Batch {
+        private final AgentPool pool;
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<TaskAttempt> attempts = new ArrayList<>();
+        private ScheduledFuture<?> windowTimer;
+        private int remaining;   // 尚未得到最终结果的任务数
+
+        Batch(AgentPool pool) {
+            this.pool = pool;
+        }
+    }
+
+    /**
+     * 角色单次调用可合并的任务数
+     */
+    private int batchLimit(AgentPool pool) {
+        return Math.min(properties.getBatchMaxSize(), pool.getMaxBatchSize());
+    }
+
+    /**
+     * 等待被放弃的尝试退出代理调用
+     */
+    private static boolean awaitEnd(TaskAttempt attempt, long deadlineNanos) {
+        try {
+            return attempt.awaitEnd(deadlineNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrchestratorException("Interrupted while waiting for cancelled tasks", e);
+        }
+    }
+
+    /**
+     * 执行一次任务尝试，结果完成时回传给调度线程
+     * 超时、取消和正常结束以先到者为准：超时或取消后中断代理调用并取消异步结果，迟到的执行结果被丢弃
+     * @return 尝试结束（结果完成或被放弃）时完成的Future，阻塞代理返回时已经完成
+     */
+    private CompletableFuture<Void> runAttempt(Task task, TaskAttempt attempt, AgentPool pool, AsyncRoleBasedAgent avoid,
+                                               BlockingQueue<TaskEvent> events) {
+        if (!attempt.begin()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        AgentPool.Lease lease = pool != null ? pool.acquire(avoid) : null;
+        attempt.setAgent(lease != null ? lease.getAgent() : null);
+        long startedAt = System.nanoTime();
+
+        long timeout = resolveTimeout(task);
+        ScheduledFuture<?> watchdog = timeout > 0
+            ? timer.schedule(() -> {
+                if (attempt.abort()) {
+                    events.add(TaskEvent.timedOut(task, attempt));
+                }
+            }, timeout, TimeUnit.MILLISECONDS)
+            : null;
+
+        CompletableFuture<TaskResult> result;
         try {
-            state.updateTaskStatus(task.getId(), Task.TaskStatus.RUNNING);
+            result = invokeAgent(task, attempt.getAgent());
+        } finally {
+            attempt.end();
+        }
+        attempt.track(result);
 
-            // 获取对应的代理
-            RoleBasedAgent agent = agents.get(task.getRole());
-            if (agent == null) {
-                throw new OrchestratorException("Unknown agent role: " + task.getRole());
+        return result.handle((outcome, error) -> {
+            if (lease != null) {
+                lease.release();
             }
+            if (attempt.settle()) {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+                boolean success = error == null && outcome != null && outcome.isSuccess();
+                Throwable cause = unwrap(error);
+                if (cause != null && !(cause instanceof CancellationException)) {
+                    System.out.println("Task execution error: " + task.getId() + " - " + cause.getMessage());
+                }
+                if (success && hedgePolicy.isEnabled()) {
+                    hedgePolicy.recordDuration(task.getRole(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                }
+                events.add(TaskEvent.finished(task, attempt, success));
+            }
+            return null;
+        });
+    }
 
-            // 执行任务
-            boolean success = agent.execute(task);
+    /**
+     * 通过一次代理调用执行一批任务，并逐个任务回传结果
+     * 整批共用一个超时计时，取各任务超时中最长的一个；超时或取消时整批调用被中断
+     */
+    private CompletableFuture<Void> runBatch(List<Task> tasks, List<TaskAttempt> attempts, AgentPool pool,
+                                             BlockingQueue<TaskEvent> events) {
+        // 收集期间或排队期间已被放弃的任务不再执行
+        List<Task> liveTasks = new ArrayList<>();
+        List<TaskAttempt> liveAttempts = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (attempts.get(i).begin()) {
+                liveTasks.add(tasks.get(i));
+                liveAttempts.add(attempts.get(i));
+            }
+        }
+        if (liveTasks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-            if (success) {
-                state.updateTask(task.complete());
-                System.out.println("Task completed: " + task.getId() + " (" + task.getRole() + ")");
-                return true;
-            } else {
-                throw new AgentExecutionException("Agent execution failed: " + task.getId());
+        AgentPool.Lease lease = pool.acquire(null);
+        BatchRoleBasedAgent agent = (BatchRoleBasedAgent) lease.getAgent();
+        liveAttempts.forEach(attempt -> attempt.setAgent(agent));
+
+        long timeout = 0;
+        for (Task task : liveTasks) {
+            long taskTimeout = resolveTimeout(task);
+            if (taskTimeout <= 0) {
+                timeout = 0;
+                break;
             }
+            timeout = Math.max(timeout, taskTimeout);
+        }
+        ScheduledFuture<?> watchdog = timeout > 0
+            ? timer.schedule(() -> {
+                for (int i = 0; i < liveTasks.size(); i++) {
+                    if (liveAttempts.get(i).abort()) {
+                        events.add(TaskEvent.timedOut(liveTasks.get(i), liveAttempts.get(i)));
+                    }
+                }
+            }, timeout, TimeUnit.MILLISECONDS)
+            : null;
+
+        CompletableFuture<Map<String, TaskResult>> result;
+        try {
+            result = agent.executeBatch(liveTasks);
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        } finally {
+            liveAttempts.forEach(TaskAttempt::end);
+        }
+        CompletableFuture<Map<String, TaskResult>> batchResult = result;
+        liveAttempts.forEach(attempt -> attempt.track(batchResult));
+
+        return result.handle((results, error) -> {
+            lease.release();
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            Throwable cause = unwrap(error);
+            if (cause != null && !(cause instanceof CancellationException)) {
+                System.out.println("Batch execution error: " + liveTasks.get(0).getRole() + " - " + cause.getMessage());
+            }
+            for (int i = 0; i < liveTasks.size(); i++) {
+                Task task = liveTasks.get(i);
+                TaskResult outcome = results != null ? results.get(task.getId()) : null;
+                if (liveAttempts.get(i).settle()) {
+                    events.add(TaskEvent.finished(task, liveAttempts.get(i), outcome != null && outcome.isSuccess()));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 任务执行超时(毫秒)：任务自身配置优先，其次是角色配置，最后是全局execution-timeout，0表示不限制
+     */
+    private long resolveTimeout(Task task) {
+        if (task.getTimeoutMillis() > 0) {
+            return task.getTimeoutMillis();
+        }
+        return properties.getRoleExecutionTimeouts().getOrDefault(task.getRole(), properties.getExecutionTimeout());
+    }
 
-        } catch (AgentExecutionException e) {
-            handleTaskFailure(task, state);
-            return false;
+    /**
+     * 调用代理执行任务，调用时抛出的异常视为执行失败
+     */
+    private CompletableFuture<TaskResult> invokeAgent(Task task, AsyncRoleBasedAgent agent) {
+        if (agent == null) {
+            System.out.println("Unknown agent role: " + task.getRole());
+            return CompletableFuture.completedFuture(TaskResult.failure("Unknown agent role: " + task.getRole()));
+        }
+
+        try {
+            return agent.executeAsync(task);
         } catch (Exception e) {
-            handleTaskFailure(task, state);
-            return false;
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 取出CompletableFuture回调中被CompletionException包装的原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 等待下一个任务事件
+     */
+    private TaskEvent awaitEvent(BlockingQueue<TaskEvent> events) {
+        try {
+            return events.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrchestratorException("Interrupted while waiting for task completion", e);
         }
     }
 
     /**
      * 处理任务失败
+     * @return 重试前需要等待的毫秒数，不再重试时返回-1
      */
-    private void handleTaskFailure(Task task, ProjectState state) {
+    private long handleTaskFailure(Task task, ProjectState state) {
         int currentRetryCount = state.getRetryCount(task.getId());
-        int maxRetries = 3; // 最大重试次数
+        int maxRetries = properties.getMaxRetryCount();
 
         if (currentRetryCount < maxRetries) {
-            // 重试任务
-            state.incrementRetryCount(task.getId());
-            Task retriedTask = task.retry();
-            state.updateTask(retriedTask);
-            System.out.println("Task retrying: " + task.getId() + " (attempt " + (currentRetryCount + 1) + ")");
+            // 重试任务，在状态中原地累加重试次数
+            state.retryTask(task.getId());
+            long delay = retryBackoff(currentRetryCount + 1);
+            System.out.println("Task retrying: " + task.getId() + " (attempt " + (currentRetryCount + 1) + ", in " + delay + "ms)");
+            return delay;
         } else {
             // 超过最大重试次数，标记为失败
-            state.updateTask(task.fail());
-            state.updateTaskStatus(task.getId(), Task.TaskStatus.FAILED);
+            state.failTask(task.getId());
             System.out.println("Task failed after max retries: " + task.getId());
+            return -1;
         }
     }
 
     /**
-     * 尝试重试失败的任务
+     * 计算第attempt次重试的退避时间：指数增长并封顶，取其中一半加随机抖动，
+     * 避免上游故障时大量任务在同一时刻集中重试
      */
-    private boolean tryRetryFailedTasks(ProjectPlan projectPlan, ProjectState state) {
-        boolean hasChanges = false;
-
-        List<Task> failedTasks = projectPlan.getTasks().stream()
-            .filter(task -> state.getTaskStatus(task.getId()) == Task.TaskStatus.FAILED)
-            .collect(Collectors.toList());
-
-        for (Task failedTask : failedTasks) {
-            if (state.getRetryCount(failedTask.getId()) < 3) {
-                if (executeTask(failedTask, state)) {
-                    hasChanges = true;
-                }
-            }
-        }
-
-        return hasChanges;
+    private long retryBackoff(int attempt) {
+        double exponential = properties.getRetryInitialBackoff()
+            * Math.pow(properties.getRetryBackoffMultiplier(), attempt - 1);
+        long capped = (long) Math.min(exponential, properties.getRetryMaxBackoff());
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
     }
 
     /**
@@ -170,6 +750,13 @@ public class AgentOrchestrator {
             throw new OrchestratorException("Project state not found: " + projectId);
         }
 
+        resumeExecution(state);
+    }
+
+    /**
+     * 断点续传 - 从给定状态对象继续执行
+     */
+    public void resumeExecution(ProjectState state) {
         ProjectPlan projectPlan = new ProjectPlan(
             state.getProjectId(),
             "Resumed Project",
@@ -179,7 +766,12 @@ public class AgentOrchestrator {
             LocalDateTime.now()
         );
 
-        executeTasks(projectPlan, state);
+        // 上次执行被取消或中断时仍在执行中的任务，在占用执行权之后恢复为派发前的状态重新执行
+        try {
+            executeTasks(projectPlan, state, true);
+        } finally {
+            stateFlusher.flush(state);
+        }
     }
 
     /**
@@ -205,4 +797,53 @@ public class AgentOrchestrator {
             super(message);
         }
     }
+
+    /**
+     * 回传给调度线程的任务事件：工作线程的执行结果，或定时线程的超时、重试到期通知
+     */
+    private static class TaskEvent {
+        private final Type type;
+        private final Task task;
+        private final TaskAttempt attempt;   // 产生事件的尝试，用于丢弃已被取消的尝试的迟到结果
+
+        private TaskEvent(Type type, Task task, TaskAttempt attempt) {
+            this.type = type;
+            this.task = task;
+            this.attempt = attempt;
+        }
+
+        static TaskEvent finished(Task task, TaskAttempt attempt, boolean success) {
+            return new TaskEvent(success ? Type.SUCCEEDED : Type.FAILED, task, attempt);
+        }
+
+        static TaskEvent timedOut(Task task, TaskAttempt attempt) {
+            return new TaskEvent(Type.TIMED_OUT, task, attempt);
+        }
+
+        static TaskEvent retryDue(Task task) {
+            return new TaskEvent(Type.RETRY_DUE, task, null);
+        }
+
+        static TaskEvent hedgeDue(Task task) {
+            return new TaskEvent(Type.HEDGE_DUE, task, null);
+        }
+
+        static TaskEvent batchDue(Task firstTask) {
+            return new TaskEvent(Type.BATCH_DUE, firstTask, null);
+        }
+
+        static TaskEvent cancelled() {
+            return new TaskEvent(Type.CANCELLED, null, null);
+        }
+
+        enum Type {
+            SUCCEEDED, // 执行成功
+            FAILED,    // 执行失败
+            TIMED_OUT, // 执行超时
+            RETRY_DUE, // 重试退避结束
+            HEDGE_DUE, // 主尝试超过角色p95耗时，可以启动对冲
+            BATCH_DUE, // 批次收集窗口结束
+            CANCELLED  // 项目被取消
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.aiteam.orchestrator;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * 同一代理类型（Agent.getAgentType()）的代理实例池
+ * 使用同一类型的所有角色共享池中的实例；每个工作线程优先租用自己固定的实例，
+ * 固定实例忙时租用同类型的其他空闲实例，所有实例都忙时与负载最小的实例共享。
+ * 这是实例租用，没有按代理类型划分的任务队列，也没有工作窃取：
+ * 任务始终在FairShareScheduler的队列中按公平顺序排队，调度器同时派发的任务不超过工作线程数，
+ * 任何空闲的工作线程都可以执行任何类型的任务，角色比例倾斜时也不会有线程因类型不符而空闲；
+ * 阻塞代理通过BlockingAgentAdapter在调用线程上以ManagedBlocker方式执行
+ */
+class AgentPool {
+
+    private final String agentType;
+    private final AsyncRoleBasedAgent[] instances;
+    private final AtomicIntegerArray active;   // 每个实例上正在执行的调用数
+
+    AgentPool(String agentType, int size, Supplier<RoleBasedAgent> factory) {
+        this.agentType = agentType;
+        this.instances = new AsyncRoleBasedAgent[Math.max(size, 1)];
+        for (int i = 0; i < instances.length; i++) {
+            RoleBasedAgent agent = factory.get();
+            instances[i] = agent instanceof AsyncRoleBasedAgent async ? async : new BlockingAgentAdapter(agent, Runnable::run);
+        }
+        this.active = new AtomicIntegerArray(instances.length);
+    }
+
+    String getAgentType() {
+        return agentType;
+    }
+
+    int size() {
+        return instances.length;
+    }
+
+    /**
+     * 单次调用最多执行的任务数，不支持批量执行的代理类型返回1
+     */
+    int getMaxBatchSize() {
+        return instances[0] instanceof BatchRoleBasedAgent batchAgent ? batchAgent.getMaxBatchSize() : 1;
+    }
+
+    /**
+     * 租用一个代理实例
+     * @param avoid 不希望使用的实例（例如对冲时主尝试正在使用的实例），可以为null
+     * @return 租约，池中没有其他可用实例时返回null
+     */
+    Lease acquire(AsyncRoleBasedAgent avoid) {
+        int size = instances.length;
+        int home = (int) (Thread.currentThread().threadId() % size);
+
+        // 先尝试固定实例，再按顺序租用同类型的空闲实例
+        for (int i = 0; i < size; i++) {
+            int index = (home + i) % size;
+            if (instances[index] != avoid && active.compareAndSet(index, 0, 1)) {
+                return new Lease(index);
+            }
+        }
+
+        // 没有空闲实例时与负载最小的实例共享
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            int index = (home + i) % size;
+            if (instances[index] != avoid && (best < 0 || active.get(index) < active.get(best))) {
+                best = index;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        active.incrementAndGet(best);
+        return new Lease(best);
+    }
+
+    /**
+     * 实例租约，使用完毕后必须调用release
+     */
+    class Lease {
+        private final int index;
+
+        private Lease(int index) {
+            this.index = index;
+        }
+
+        AsyncRoleBasedAgent getAgent() {
+            return instances[index];
+        }
+
+        void release() {
+            active.decrementAndGet(index);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.aiteam.orchestrator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 非阻塞的角色代理接口
+ * 基于异步HTTP/LLM客户端的代理实现此接口，等待远程调用期间不占用编排器的工作线程；
+ * 编排器在返回的Future完成时才归还工作槽位和角色额度，超时或取消时会cancel该Future
+ */
+public interface AsyncRoleBasedAgent extends RoleBasedAgent {
+
+    /**
+     * 异步执行任务
+     * @param task 要执行的任务
+     * @return 执行结果，异常完成视为执行失败
+     */
+    CompletableFuture<TaskResult> executeAsync(Task task);
+
+    /**
+     * 阻塞执行，供只支持同步调用的场景使用
+     * 异常完成、被取消或没有结果都返回false
+     */
+    @Override
+    default boolean execute(Task task) {
+        CompletableFuture<TaskResult> result = executeAsync(task);
+        try {
+            TaskResult outcome = result.get();
+            return outcome != null && outcome.isSuccess();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return false;
+        }
+    }
+}
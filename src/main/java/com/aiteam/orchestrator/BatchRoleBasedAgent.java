@@ -0,0 +1,36 @@
+package com.aiteam.orchestrator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 支持批量执行的角色代理
+ * 编排器把同一项目中同一角色、在短时间窗口内就绪的任务合并为一批，通过一次调用（例如一次模型请求）执行，
+ * 每个任务的结果仍单独回报到项目状态
+ */
+public interface BatchRoleBasedAgent extends AsyncRoleBasedAgent {
+
+    /**
+     * 批量执行任务
+     * @param tasks 同一角色的任务
+     * @return 任务ID到执行结果的映射，缺少结果的任务视为执行失败
+     */
+    CompletableFuture<Map<String, TaskResult>> executeBatch(List<Task> tasks);
+
+    /**
+     * 单次调用最多包含的任务数
+     */
+    default int getMaxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 单个任务按一个任务的批次执行
+     */
+    @Override
+    default CompletableFuture<TaskResult> executeAsync(Task task) {
+        return executeBatch(List.of(task)).thenApply(results ->
+            results.getOrDefault(task.getId(), TaskResult.failure("No result for task: " + task.getId())));
+    }
+}
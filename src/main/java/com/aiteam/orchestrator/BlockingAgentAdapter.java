@@ -0,0 +1,80 @@
+package com.aiteam.orchestrator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 把阻塞的RoleBasedAgent适配为AsyncRoleBasedAgent，现有代理实现无需修改
+ * 阻塞调用在给定的执行器上运行；使用调用线程执行时，返回的Future在返回前已经完成，
+ * 代理调用仍可被超时和取消中断；
+ * 阻塞调用通过ForkJoinPool.ManagedBlocker执行，在ForkJoinPool工作线程上阻塞时线程池会补充线程，
+ * 某个角色的阻塞调用集中时不会占满整个线程池
+ */
+public class BlockingAgentAdapter implements AsyncRoleBasedAgent {
+
+    private final RoleBasedAgent delegate;
+    private final Executor executor;
+
+    public BlockingAgentAdapter(RoleBasedAgent delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<TaskResult> executeAsync(Task task) {
+        return CompletableFuture.supplyAsync(
+            () -> executeManaged(task) ? TaskResult.success(null) : TaskResult.failure("Agent reported failure"),
+            executor);
+    }
+
+    @Override
+    public boolean execute(Task task) {
+        return executeManaged(task);
+    }
+
+    private boolean executeManaged(Task task) {
+        AgentCall call = new AgentCall(task);
+        try {
+            ForkJoinPool.managedBlock(call);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return call.success;
+    }
+
+    @Override
+    public String getRoleName() {
+        return delegate.getRoleName();
+    }
+
+    public RoleBasedAgent getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 一次阻塞的代理调用，非ForkJoinPool线程上直接执行
+     */
+    private class AgentCall implements ForkJoinPool.ManagedBlocker {
+        private final Task task;
+        private boolean done;
+        private boolean success;
+
+        AgentCall(Task task) {
+            this.task = task;
+        }
+
+        @Override
+        public boolean block() {
+            success = delegate.execute(task);
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.aiteam.orchestrator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 带近端缓存的项目状态仓库
+ * 包装另一个仓库，把最近读写的项目状态保存在本进程内，重复读取同一项目时不再访问远端存储和反序列化：
+ * 按最近使用顺序限制缓存的项目数，超过存活时间的项目在下次读取时重新加载
+ * 缓存的是保存或加载时的只读快照：loadSnapshot()直接返回缓存的快照，load()每次返回由快照创建的独立状态，
+ * 调用方对返回状态的修改只有保存后才对其他调用方可见
+ *
+ * 节点间通过消息维持一致：节点从被包装仓库加载项目后发出加载通知，写入项目的节点据此知道其他节点可能缓存了该项目；
+ * 保存时只在其他节点可能缓存了该项目时发出失效通知，之后直到再次收到加载通知前的保存都不再通知，
+ * 执行中的项目每次增量保存不会都产生一条通知；收到加载通知时若本节点在上次通知之后写入过该项目，立即补发失效通知，
+ * 覆盖加载与写入并发、加载方读到写入之前数据的情况。本节点没有该项目的缓存记录时按其他节点可能缓存处理
+ */
+public class CachingProjectStateRepository implements ProjectStateRepository {
+
+    private static final String INVALIDATE = "invalidate";   // 其他节点移除该项目的缓存
+    private static final String LOADED = "loaded";           // 发送方缓存了该项目
+
+    private final ProjectStateRepository delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Consumer<String> messagePublisher;   // 把加载和失效通知发送给其他节点
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 按访问顺序排列，最久未使用的项目在最前面；所有访问在this上同步
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 正在从被包装仓库加载的项目，加载期间发生写入或失效时被移除，加载结果随之作废
+    private final Map<String, Object> loading = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long invalidationsSent;
+
+    public CachingProjectStateRepository(ProjectStateRepository delegate, int maxSize, long ttlMillis,
+                                         Consumer<String> messagePublisher) {
+        this.delegate = delegate;
+        this.maxSize = Math.max(maxSize, 1);
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.messagePublisher = messagePublisher;
+    }
+
+    @Override
+    public void save(ProjectState state) {
+        delegate.save(state);
+        if (put(state.snapshot())) {
+            publish(INVALIDATE, state.getProjectId());
+        }
+    }
+
+    @Override
+    public void saveDelta(ProjectState state, ProjectStateDelta delta) {
+        delegate.saveDelta(state, delta);
+        if (put(state.snapshot())) {
+            publish(INVALIDATE, state.getProjectId());
+        }
+    }
+
+    /**
+     * 返回由缓存快照创建的独立状态，不与其他调用方共享
+     */
+    @Override
+    public ProjectState load(String projectId) {
+        ProjectStateSnapshot snapshot = loadSnapshot(projectId);
+        return snapshot != null ? ProjectState.fromSnapshot(snapshot) : null;
+    }
+
+    @Override
+    public ProjectStateSnapshot loadSnapshot(String projectId) {
+        Object token = new Object();
+        synchronized (this) {
+            Entry cached = cached(projectId);
+            if (cached != null) {
+                hits++;
+                return cached.snapshot;
+            }
+            misses++;
+            loading.put(projectId, token);
+        }
+
+        ProjectStateSnapshot snapshot = null;
+        boolean inserted = false;
+        try {
+            ProjectState state = delegate.load(projectId);
+            snapshot = state != null ? state.snapshot() : null;
+        } finally {
+            synchronized (this) {
+                // 加载期间有写入或失效时，缓存中的状态更新或应当丢弃，不用加载结果覆盖
+                if (loading.remove(projectId, token) && snapshot != null) {
+                    insert(projectId, new Entry(snapshot, System.nanoTime() + ttlNanos, true));
+                    inserted = true;
+                }
+            }
+        }
+        if (inserted) {
+            publish(LOADED, projectId);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public Map<String, Task> loadTasks(String projectId, Collection<String> taskIds) {
+        ProjectStateSnapshot snapshot;
+        synchronized (this) {
+            Entry cached = cached(projectId);
+            snapshot = cached != null ? cached.snapshot : null;
+            if (snapshot != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (snapshot == null) {
+            return delegate.loadTasks(projectId, taskIds);
+        }
+
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            Task task = snapshot.getTask(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String projectId) {
+        delegate.delete(projectId);
+        synchronized (this) {
+            entries.remove(projectId);
+            loading.remove(projectId);
+        }
+        publish(INVALIDATE, projectId);
+    }
+
+    @Override
+    public boolean exists(String projectId) {
+        synchronized (this) {
+            if (cached(projectId) != null) {
+                return true;
+            }
+        }
+        return delegate.exists(projectId);
+    }
+
+    /**
+     * 处理其他节点发出的通知，本节点自己发出的通知被忽略
+     * 失效通知移除本节点缓存中的项目；加载通知标记该项目被其他节点缓存，本节点在上次通知后写入过时立即补发失效通知
+     */
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        String projectId = parts[2];
+        boolean republish = false;
+        synchronized (this) {
+            if (INVALIDATE.equals(parts[1])) {
+                if (entries.remove(projectId) != null) {
+                    invalidations++;
+                }
+                loading.remove(projectId);
+            } else if (LOADED.equals(parts[1])) {
+                Entry entry = entries.get(projectId);
+                if (entry != null) {
+                    republish = entry.written;
+                    entry.shared = !republish;
+                    entry.written = false;
+                }
+            }
+        }
+        if (republish) {
+            publish(INVALIDATE, projectId);
+        }
+    }
+
+    /**
+     * 当前的命中和淘汰统计
+     */
+    public synchronized StateCacheStats getStats() {
+        return new StateCacheStats(entries.size(), maxSize, hits, misses, evictions, expirations, invalidations,
+            invalidationsSent);
+    }
+
+    /**
+     * 保存后更新缓存，返回是否需要通知其他节点：其他节点可能缓存了该项目，或本节点没有该项目的记录
+     */
+    private synchronized boolean put(ProjectStateSnapshot snapshot) {
+        String projectId = snapshot.getProjectId();
+        Entry previous = entries.get(projectId);
+        boolean publish = previous == null || previous.shared;
+        Entry entry = new Entry(snapshot, System.nanoTime() + ttlNanos, false);
+        entry.written = !publish;
+        insert(projectId, entry);
+        loading.remove(projectId);
+        return publish;
+    }
+
+    /**
+     * 未过期的缓存项，过期的项被移除；调用方需持有this锁
+     */
+    private Entry cached(String projectId) {
+        Entry entry = entries.get(projectId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(projectId);
+            expirations++;
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 写入缓存并淘汰超出容量的最久未使用项；调用方需持有this锁
+     */
+    private void insert(String projectId, Entry entry) {
+        entries.put(projectId, entry);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void publish(String type, String projectId) {
+        try {
+            messagePublisher.accept(nodeId + "|" + type + "|" + projectId);
+            if (INVALIDATE.equals(type)) {
+                synchronized (this) {
+                    invalidationsSent++;
+                }
+            }
+        } catch (RuntimeException e) {
+            // 通知失败时其他节点的缓存最多在存活时间后过期
+            System.out.println("Failed to publish state cache " + type + " for " + projectId + ": " + e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+        final ProjectStateSnapshot snapshot;
+        final long expiresAt;
+        boolean shared;    // 其他节点可能缓存了该项目，下次保存时需要发出失效通知
+        boolean written;   // 上次发出失效通知之后本节点保存过该项目
+
+        Entry(ProjectStateSnapshot snapshot, long expiresAt, boolean shared) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+            this.shared = shared;
+        }
+    }
+}
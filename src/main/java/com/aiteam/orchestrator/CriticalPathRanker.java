@@ -0,0 +1,72 @@
+package com.aiteam.orchestrator;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关键路径计算器
+ * 按角色预估耗时计算每个任务到终点任务的最长剩余路径，路径越长的任务越应该优先执行
+ */
+class CriticalPathRanker {
+
+    private final Map<String, Long> roleDurationEstimates;   // 角色 -> 预估耗时(毫秒)
+    private final long defaultDuration;
+
+    CriticalPathRanker(Map<String, Long> roleDurationEstimates, long defaultDuration) {
+        this.roleDurationEstimates = roleDurationEstimates;
+        this.defaultDuration = defaultDuration;
+    }
+
+    /**
+     * 计算每个任务的最长剩余路径（包含任务自身耗时）
+     * 按逆拓扑序从终点任务向前推进，整体复杂度O(任务数 + 依赖边数)
+     */
+    Map<String, Long> rank(ProjectPlan projectPlan) {
+        Map<String, Task> tasks = new HashMap<>();
+        projectPlan.getTasks().forEach(task -> tasks.put(task.getId(), task));
+        Map<String, List<String>> dependents = projectPlan.getDependents();
+
+        Map<String, Integer> unrankedDependents = new HashMap<>();
+        Map<String, Long> longestSuccessorPath = new HashMap<>();
+        Map<String, Long> ranks = new HashMap<>();
+        Deque<String> rankable = new ArrayDeque<>();
+
+        for (Task task : projectPlan.getTasks()) {
+            int count = dependents.getOrDefault(task.getId(), Collections.emptyList()).size();
+            unrankedDependents.put(task.getId(), count);
+            if (count == 0) {
+                rankable.add(task.getId());
+            }
+        }
+
+        while (!rankable.isEmpty()) {
+            Task task = tasks.get(rankable.poll());
+            long rank = estimate(task) + longestSuccessorPath.getOrDefault(task.getId(), 0L);
+            ranks.put(task.getId(), rank);
+
+            for (String depId : task.getDependencies()) {
+                if (!tasks.containsKey(depId)) {
+                    continue;
+                }
+                longestSuccessorPath.merge(depId, rank, Math::max);
+                if (unrankedDependents.merge(depId, -1, Integer::sum) == 0) {
+                    rankable.add(depId);
+                }
+            }
+        }
+
+        // 存在循环依赖的任务无法排序，只按自身耗时参与排序
+        for (Task task : projectPlan.getTasks()) {
+            ranks.putIfAbsent(task.getId(), estimate(task));
+        }
+        return ranks;
+    }
+
+    private long estimate(Task task) {
+        return roleDurationEstimates.getOrDefault(task.getRole(), defaultDuration);
+    }
+}
@@ -0,0 +1,240 @@
+package com.aiteam.orchestrator;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 基于JPA的项目状态仓库
+ * 项目整体信息保存在project_state表，每个任务一行保存在task_state表，主键为(项目ID, 任务ID)
+ * 写入依赖Hibernate的JDBC批量执行（hibernate.jdbc.batch_size、order_inserts、order_updates）：
+ * 完整保存和增量保存都按批读取任务的现有行，已存在的更新、不存在的插入，flush时同类语句合并为批量执行；
+ * 完整保存时内容未变化的行不会产生UPDATE（Hibernate脏检查），任务ID不在快照中的旧行被删除；
+ * 加载通过一次join fetch读取项目和全部任务
+ */
+class DatabaseProjectStateRepository implements ProjectStateRepository {
+
+    private static final int BATCH_SIZE = 500;   // 与hibernate.jdbc.batch_size一致，每批flush后清空持久化上下文
+    private static final int IN_CLAUSE_SIZE = 1000;   // 单条IN查询最多的任务ID数
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseProjectStateRepository(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void save(ProjectState state) {
+        // 先清除未持久化标记再生成快照，快照之后的修改留到下一次增量保存
+        long[] flushed = state.drainUnflushed();
+        try {
+            ProjectStateSnapshot snapshot = state.snapshot();
+            String projectId = snapshot.getProjectId();
+            int taskCount = snapshot.getTaskCount();
+            int[] slots = new int[taskCount];
+            for (int slot = 0; slot < taskCount; slot++) {
+                slots[slot] = slot;
+            }
+            execute("Failed to save project state: " + projectId, () -> {
+                ProjectStateEntity project = saveProject(projectId, taskCount, snapshot.getOverallStatus(),
+                    snapshot.getVersion(), snapshot.getLastUpdated());
+                deleteRemovedTasks(projectId, snapshot.getTasks());
+                upsertTasks(project, slots, snapshot.getTasks());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            state.restoreUnflushed(flushed);
+            throw e;
+        }
+    }
+
+    @Override
+    public void saveDelta(ProjectState state, ProjectStateDelta delta) {
+        String projectId = delta.getProjectId();
+        execute("Failed to save project state: " + projectId, () -> {
+            ProjectStateEntity project = saveProject(projectId, delta.getTaskCount(), delta.getOverallStatus(),
+                delta.getVersion(), delta.getLastUpdated());
+            upsertTasks(project, delta.getSlots(), delta.getChangedTasks());
+            return null;
+        });
+    }
+
+    /**
+     * 删除任务ID不在快照中的旧行
+     * 只按下标删除不够：同一下标换成其他任务ID时旧行会带着过期的下标留在表中，加载时变成多余的任务
+     */
+    private void deleteRemovedTasks(String projectId, List<Task> tasks) {
+        Set<String> kept = new HashSet<>(tasks.size() * 2);
+        for (Task task : tasks) {
+            kept.add(task.getId());
+        }
+        List<String> removed = new ArrayList<>();
+        for (String taskId : entityManager.createQuery(
+                "select t.taskId from TaskEntity t where t.project.projectId = :projectId", String.class)
+            .setParameter("projectId", projectId)
+            .getResultList()) {
+            if (!kept.contains(taskId)) {
+                removed.add(taskId);
+            }
+        }
+        for (int from = 0; from < removed.size(); from += IN_CLAUSE_SIZE) {
+            entityManager.createQuery("delete from TaskEntity t where t.project.projectId = :projectId and t.taskId in :taskIds")
+                .setParameter("projectId", projectId)
+                .setParameter("taskIds", removed.subList(from, Math.min(from + IN_CLAUSE_SIZE, removed.size())))
+                .executeUpdate();
+        }
+    }
+
+    /**
+     * 按批写入任务行：每批用一次IN查询读取已有的行，已有的更新、不存在的插入
+     * 已有行的内容没有变化时flush不产生UPDATE；每批flush后清空持久化上下文
+     */
+    private void upsertTasks(ProjectStateEntity project, int[] slots, List<Task> tasks) {
+        String projectId = project.getProjectId();
+        for (int from = 0; from < slots.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, slots.length);
+            List<Task> batch = new ArrayList<>(to - from);
+            List<String> taskIds = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Task task = tasks.get(i);
+                batch.add(task);
+                taskIds.add(task.getId());
+            }
+            Map<String, TaskEntity> existing = new HashMap<>();
+            for (TaskEntity entity : findTasks(projectId, taskIds)) {
+                existing.put(entity.getTaskId(), entity);
+            }
+            // 已有的行在flush时批量UPDATE，新任务批量INSERT
+            for (int i = from; i < to; i++) {
+                Task task = batch.get(i - from);
+                TaskEntity entity = existing.get(task.getId());
+                if (entity != null) {
+                    entity.update(slots[i], task);
+                } else {
+                    entityManager.persist(new TaskEntity(project, slots[i], task));
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            project = entityManager.getReference(ProjectStateEntity.class, projectId);
+        }
+    }
+
+    @Override
+    public ProjectState load(String projectId) {
+        List<ProjectStateEntity> found = execute("Failed to load project state: " + projectId, () ->
+            entityManager.createQuery(
+                    "select distinct p from ProjectStateEntity p left join fetch p.tasks where p.projectId = :projectId",
+                    ProjectStateEntity.class)
+                .setParameter("projectId", projectId)
+                .getResultList());
+        if (found.isEmpty()) {
+            return null;
+        }
+
+        ProjectState state = new ProjectState(projectId);
+        for (TaskEntity entity : found.get(0).getTasks()) {
+            state.addTask(entity.toTask());
+        }
+        state.markFlushed();
+        return state;
+    }
+
+    @Override
+    public Map<String, Task> loadTasks(String projectId, Collection<String> taskIds) {
+        List<String> ids = new ArrayList<>(taskIds);
+        Map<String, Task> found = new HashMap<>();
+        execute("Failed to load tasks of project: " + projectId, () -> {
+            for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+                for (TaskEntity entity : findTasks(projectId, ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size())))) {
+                    found.put(entity.getTaskId(), entity.toTask());
+                }
+            }
+            return null;
+        });
+
+        // 按请求的顺序返回
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : ids) {
+            Task task = found.get(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String projectId) {
+        execute("Failed to delete project state: " + projectId, () -> {
+            entityManager.createQuery("delete from TaskEntity t where t.project.projectId = :projectId")
+                .setParameter("projectId", projectId)
+                .executeUpdate();
+            entityManager.createQuery("delete from ProjectStateEntity p where p.projectId = :projectId")
+                .setParameter("projectId", projectId)
+                .executeUpdate();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean exists(String projectId) {
+        return execute("Failed to check project state: " + projectId, () ->
+            entityManager.find(ProjectStateEntity.class, projectId) != null);
+    }
+
+    /**
+     * 更新项目行，不存在时插入；新行先填好非空列再persist
+     */
+    private ProjectStateEntity saveProject(String projectId, int taskCount, ProjectState.ProjectStatus overallStatus,
+                                           long version, LocalDateTime lastUpdated) {
+        ProjectStateEntity project = entityManager.find(ProjectStateEntity.class, projectId);
+        if (project != null) {
+            project.update(taskCount, overallStatus, version, lastUpdated);
+            return project;
+        }
+        project = new ProjectStateEntity(projectId);
+        project.update(taskCount, overallStatus, version, lastUpdated);
+        entityManager.persist(project);
+        return project;
+    }
+
+    private List<TaskEntity> findTasks(String projectId, List<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery(
+                "select t from TaskEntity t where t.project.projectId = :projectId and t.taskId in :taskIds",
+                TaskEntity.class)
+            .setParameter("projectId", projectId)
+            .setParameter("taskIds", taskIds)
+            .getResultList();
+    }
+
+    /**
+     * 在事务中执行，数据库访问失败时抛出StateStoreException
+     */
+    private <T> T execute(String message, Supplier<T> action) {
+        try {
+            return transactionTemplate.execute(status -> action.get());
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            throw new StateStoreException(message, e);
+        }
+    }
+}
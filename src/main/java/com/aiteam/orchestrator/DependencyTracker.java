@@ -0,0 +1,151 @@
+package com.aiteam.orchestrator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * 依赖追踪器，基于入度计数维护就绪队列
+ * 入度只在创建时根据ProjectState中以下标表示的依赖关系计算一次，后继关系保存为压缩的int邻接数组，
+ * 任务完成时仅递减其直接后继任务的计数，计数归零的任务进入就绪队列
+ * 就绪任务按优先级出队：优先级相同（或未提供优先级）时保持计划中的顺序
+ */
+class DependencyTracker {
+
+    private final ProjectState state;
+    private final int[] dependentOffsets;       // 任务下标 -> 在dependentSlots中的起始位置
+    private final int[] dependentSlots;         // 依赖各任务的任务下标，按任务下标连续存放
+    private final int[] remainingDependencies;  // 任务下标 -> 未完成的前置任务数
+    private final int[] planOrder;              // 任务下标 -> 在计划中的位置
+    private final Queue<Integer> readyQueue;    // 就绪任务的下标
+
+    /**
+     * 按计划顺序（FIFO）出队
+     */
+    DependencyTracker(ProjectPlan projectPlan, ProjectState state) {
+        this(projectPlan, state, null);
+    }
+
+    /**
+     * 按关键路径长度出队，路径相同时优先后继任务多的任务
+     * @param ranks 任务ID -> 到终点任务的最长剩余路径，为null时按计划顺序出队
+     */
+    DependencyTracker(ProjectPlan projectPlan, ProjectState state, Map<String, Long> ranks) {
+        this.state = state;
+        int slotCount = state.getTaskCount();
+        this.remainingDependencies = new int[slotCount];
+        this.planOrder = new int[slotCount];
+        Arrays.fill(planOrder, Integer.MAX_VALUE);
+
+        // 计划中的任务在状态中的下标，不在状态中的任务无法派发，直接忽略
+        List<Task> tasks = projectPlan.getTasks();
+        int[] planSlots = new int[tasks.size()];
+        int[] dependentCounts = new int[slotCount + 1];
+        for (int i = 0; i < tasks.size(); i++) {
+            int slot = state.slotOf(tasks.get(i).getId());
+            planSlots[i] = slot;
+            if (slot < 0 || slot >= slotCount) {
+                continue;
+            }
+            planOrder[slot] = i;
+            for (int depSlot : state.dependencySlots(slot)) {
+                // 与ProjectState.canExecuteTask一致：不存在的前置任务视为已满足
+                if (depSlot != ProjectState.UNRESOLVED && depSlot < slotCount) {
+                    dependentCounts[depSlot + 1]++;
+                    if (state.statusAt(depSlot) != Task.TaskStatus.COMPLETED) {
+                        remainingDependencies[slot]++;
+                    }
+                }
+            }
+        }
+
+        // 按前置任务下标分组存放后继任务
+        this.dependentOffsets = dependentCounts;
+        for (int slot = 0; slot < slotCount; slot++) {
+            dependentOffsets[slot + 1] += dependentOffsets[slot];
+        }
+        this.dependentSlots = new int[dependentOffsets[slotCount]];
+        int[] fill = Arrays.copyOf(dependentOffsets, slotCount);
+        for (int slot : planSlots) {
+            if (slot < 0 || slot >= slotCount) {
+                continue;
+            }
+            for (int depSlot : state.dependencySlots(slot)) {
+                if (depSlot != ProjectState.UNRESOLVED && depSlot < slotCount) {
+                    dependentSlots[fill[depSlot]++] = slot;
+                }
+            }
+        }
+
+        Comparator<Integer> byPlanOrder = Comparator.comparingInt(slot -> planOrder[slot]);
+        if (ranks == null) {
+            this.readyQueue = new PriorityQueue<>(byPlanOrder);
+        } else {
+            long[] rankBySlot = new long[slotCount];
+            for (int slot : planSlots) {
+                if (slot >= 0 && slot < slotCount) {
+                    rankBySlot[slot] = ranks.getOrDefault(state.taskIdAt(slot), 0L);
+                }
+            }
+            Comparator<Integer> byRank = Comparator.comparingLong((Integer slot) -> rankBySlot[slot]).reversed();
+            Comparator<Integer> byFanOut = Comparator.comparingInt((Integer slot) ->
+                dependentOffsets[slot + 1] - dependentOffsets[slot]).reversed();
+            this.readyQueue = new PriorityQueue<>(byRank.thenComparing(byFanOut).thenComparing(byPlanOrder));
+        }
+
+        for (int slot : planSlots) {
+            if (slot >= 0 && slot < slotCount && remainingDependencies[slot] == 0 && isWaiting(slot)) {
+                readyQueue.add(slot);
+            }
+        }
+    }
+
+    /**
+     * 是否有可派发的任务
+     */
+    boolean hasReady() {
+        return !readyQueue.isEmpty();
+    }
+
+    /**
+     * 取出下一个可派发的任务ID，没有时返回null
+     */
+    String pollReady() {
+        Integer slot = readyQueue.poll();
+        return slot != null ? state.taskIdAt(slot) : null;
+    }
+
+    /**
+     * 任务完成，递减后继任务的入度
+     */
+    void onCompleted(String taskId) {
+        int slot = state.slotOf(taskId);
+        if (slot < 0 || slot >= remainingDependencies.length) {
+            return;
+        }
+        for (int i = dependentOffsets[slot]; i < dependentOffsets[slot + 1]; i++) {
+            int dependent = dependentSlots[i];
+            if (--remainingDependencies[dependent] == 0 && isWaiting(dependent)) {
+                readyQueue.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * 任务进入重试，重新放回就绪队列
+     */
+    void requeue(String taskId) {
+        int slot = state.slotOf(taskId);
+        if (slot >= 0 && slot < remainingDependencies.length) {
+            readyQueue.add(slot);
+        }
+    }
+
+    private boolean isWaiting(int slot) {
+        Task.TaskStatus status = state.statusAt(slot);
+        return status == Task.TaskStatus.PENDING || status == Task.TaskStatus.RETRYING;
+    }
+}
@@ -0,0 +1,74 @@
+package com.aiteam.orchestrator;
+
+import java.time.LocalDateTime;
+
+/**
+ * 项目执行句柄，提交执行后立即返回给调用方，用于查询后台执行进度
+ */
+public class ExecutionHandle {
+
+    private final String executionId;
+    private final String projectId;
+    private final ProjectState state;          // 执行中的实时状态
+    private final LocalDateTime submittedAt;
+    private volatile ExecutionStatus status;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String errorMessage;
+    private volatile boolean cancelRequested;
+
+    public ExecutionHandle(String executionId, String projectId, ProjectState state) {
+        this.executionId = executionId;
+        this.projectId = projectId;
+        this.state = state;
+        this.submittedAt = LocalDateTime.now();
+        this.status = ExecutionStatus.SUBMITTED;
+    }
+
+    // Getters
+    public String getExecutionId() { return executionId; }
+    public String getProjectId() { return projectId; }
+    public ProjectState getState() { return state; }
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public ExecutionStatus getStatus() { return status; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public String getErrorMessage() { return errorMessage; }
+    public boolean isCancelRequested() { return cancelRequested; }
+
+    public boolean isActive() {
+        return status == ExecutionStatus.SUBMITTED || status == ExecutionStatus.RUNNING;
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ExecutionStatus.RUNNING;
+    }
+
+    void markCancelRequested() {
+        cancelRequested = true;
+    }
+
+    void markFinished() {
+        finishedAt = LocalDateTime.now();
+        if (cancelRequested) {
+            status = ExecutionStatus.CANCELLED;
+        } else {
+            status = state.hasFailedTasks() ? ExecutionStatus.FAILED : ExecutionStatus.COMPLETED;
+        }
+    }
+
+    void markFailed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        finishedAt = LocalDateTime.now();
+        status = ExecutionStatus.FAILED;
+    }
+
+    public enum ExecutionStatus {
+        SUBMITTED, // 已提交，等待调度
+        RUNNING,   // 执行中
+        COMPLETED, // 执行结束
+        FAILED,    // 执行失败
+        CANCELLED  // 已取消，可断点续传
+    }
+}
@@ -0,0 +1,288 @@
+package com.aiteam.orchestrator;
+
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 多项目公平调度器
+ * 所有项目共享同一组工作线程，各项目的就绪任务进入各自的队列，
+ * 按加权公平排队（开始时间公平排队，SFQ）交错派发，大项目无法长期独占工作线程；
+ * 同时按角色舱壁限制派发，角色额度已满的任务留在队列中，不占用工作线程
+ */
+@Component
+public class FairShareScheduler {
+
+    private static final int WAIT_SAMPLE_SIZE = 1024;       // 每个项目保留的排队耗时样本数
+    private static final int MAX_TRACKED_PROJECTS = 1000;   // 保留排队统计的项目数
+
+    private final RoleBulkhead roleBulkhead;
+    private final ExecutorService workerPool;
+    private final int capacity;
+    private final double defaultWeight;
+    private final Map<String, Double> weights = new ConcurrentHashMap<>();
+    private final Map<String, ProjectQueue> queues = new LinkedHashMap<>();   // 受this保护
+    private final Map<String, WaitRecorder> waitRecorders;                     // 受this保护
+    private double virtualTime;
+    private int running;
+
+    public FairShareScheduler(OrchestratorProperties properties, RoleBulkhead roleBulkhead) {
+        this.roleBulkhead = roleBulkhead;
+        this.defaultWeight = properties.getDefaultProjectWeight();
+        this.waitRecorders = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WaitRecorder> eldest) {
+                return size() > MAX_TRACKED_PROJECTS;
+            }
+        };
+
+        if (properties.getExecutorType() == OrchestratorProperties.ExecutorType.VIRTUAL) {
+            this.capacity = properties.getMaxConcurrentTasks();
+            this.workerPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agent-vworker-", 1).factory());
+        } else {
+            this.capacity = properties.getWorkerPoolSize();
+            this.workerPool = createPlatformPool(capacity);
+        }
+
+        roleBulkhead.addCapacityListener(this::dispatchPending);
+    }
+
+    /**
+     * 平台线程使用ForkJoinPool
+     * 调度器同时派发的任务不超过capacity，线程池的双端队列中基本没有积压，排队和公平性都由调度器负责，
+     * 不依赖ForkJoinPool的工作窃取；
+     * 使用ForkJoinPool是为了配合BlockingAgentAdapter的ManagedBlocker：
+     * 工作线程阻塞在代理调用上时线程池补充线程，阻塞较多的角色不会占满线程池
+     */
+    private static ExecutorService createPlatformPool(int poolSize) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("agent-worker-" + threadCounter.incrementAndGet());
+            return thread;
+        };
+        // asyncMode: 本线程队列按先进先出执行，与调度器的派发顺序一致
+        return new ForkJoinPool(poolSize, factory, null, true);
+    }
+
+    /**
+     * 同时执行的任务上限
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 提交任务到项目队列
+     * @param cost 任务预估耗时，权重相同时各项目按累计耗时均分工作线程
+     */
+    public void submit(String projectId, String role, long cost, Runnable work) {
+        submitAsync(projectId, role, cost, () -> {
+            work.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * 提交异步任务到项目队列
+     * work在工作线程上启动异步操作并返回，返回的CompletionStage完成前任务一直占用执行槽位和角色额度，
+     * 但不占用工作线程
+     */
+    public void submitAsync(String projectId, String role, long cost, Supplier<? extends CompletionStage<?>> work) {
+        synchronized (this) {
+            ProjectQueue queue = queues.computeIfAbsent(projectId, id -> new ProjectQueue());
+            double startTag = Math.max(virtualTime, queue.lastFinishTag);
+            queue.lastFinishTag = startTag + cost / getWeight(projectId);
+            queue.entries.add(new QueuedTask(projectId, role, work, startTag, System.nanoTime()));
+        }
+        dispatchPending();
+    }
+
+    /**
+     * 设置项目权重，权重越大分到的工作线程越多
+     */
+    public void setWeight(String projectId, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Project weight must be positive: " + weight);
+        }
+        weights.put(projectId, weight);
+    }
+
+    public double getWeight(String projectId) {
+        return weights.getOrDefault(projectId, defaultWeight);
+    }
+
+    /**
+     * 清除项目权重，项目执行结束或删除后调用，再次执行时恢复默认权重
+     */
+    public void clearWeight(String projectId) {
+        weights.remove(projectId);
+    }
+
+    /**
+     * 获取项目的排队等待统计
+     */
+    public synchronized QueueWaitStats getQueueWaitStats(String projectId) {
+        WaitRecorder recorder = waitRecorders.get(projectId);
+        return recorder != null ? recorder.snapshot() : QueueWaitStats.EMPTY;
+    }
+
+    /**
+     * 在工作线程和角色额度允许的范围内派发排队任务
+     */
+    private void dispatchPending() {
+        List<QueuedTask> dispatched = new ArrayList<>();
+        synchronized (this) {
+            while (running < capacity) {
+                QueuedTask next = pollNext();
+                if (next == null) {
+                    break;
+                }
+                running++;
+                waitRecorders.computeIfAbsent(next.projectId, id -> new WaitRecorder())
+                    .record(System.nanoTime() - next.enqueuedAt);
+                dispatched.add(next);
+            }
+        }
+        dispatched.forEach(task -> workerPool.execute(() -> run(task)));
+    }
+
+    /**
+     * 选出所有项目中开始标签最小、且角色有空余额度的任务，并占用其角色额度
+     * 检查额度和占用额度之间角色额度可能被其他线程占满，占用失败时跳过该角色继续选择，
+     * 不会因为一个角色的竞争让其他项目和角色的任务停止派发
+     */
+    private QueuedTask pollNext() {
+        Set<String> exhausted = new HashSet<>();
+        while (true) {
+            QueuedTask best = null;
+            for (ProjectQueue queue : queues.values()) {
+                // 同一项目的任务按开始标签递增排列，只需找到第一个角色有额度的任务
+                for (QueuedTask candidate : queue.entries) {
+                    if (best != null && candidate.startTag >= best.startTag) {
+                        break;
+                    }
+                    if (!exhausted.contains(candidate.role) && roleBulkhead.hasCapacity(candidate.role)) {
+                        best = candidate;
+                        break;
+                    }
+                }
+            }
+
+            if (best == null) {
+                return null;
+            }
+            if (!roleBulkhead.tryAcquire(best.role)) {
+                exhausted.add(best.role);
+                continue;
+            }
+
+            ProjectQueue queue = queues.get(best.projectId);
+            queue.entries.remove(best);
+            if (queue.entries.isEmpty()) {
+                queues.remove(best.projectId);
+            }
+            virtualTime = best.startTag;
+            return best;
+        }
+    }
+
+    private void run(QueuedTask task) {
+        CompletionStage<?> completion;
+        try {
+            completion = task.work.get();
+        } catch (RuntimeException e) {
+            completion = CompletableFuture.failedFuture(e);
+        }
+        completion.whenComplete((result, error) -> release(task));
+    }
+
+    /**
+     * 任务结束，归还角色额度和执行槽位
+     */
+    private void release(QueuedTask task) {
+        roleBulkhead.release(task.role);
+        synchronized (this) {
+            running--;
+        }
+        dispatchPending();
+    }
+
+    /**
+     * 关闭工作线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * 单个项目的排队任务
+     */
+    private static class ProjectQueue {
+        private final List<QueuedTask> entries = new ArrayList<>();
+        private double lastFinishTag;
+    }
+
+    private static class QueuedTask {
+        private final String projectId;
+        private final String role;
+        private final Supplier<? extends CompletionStage<?>> work;
+        private final double startTag;
+        private final long enqueuedAt;
+
+        QueuedTask(String projectId, String role, Supplier<? extends CompletionStage<?>> work, double startTag, long enqueuedAt) {
+            this.projectId = projectId;
+            this.role = role;
+            this.work = work;
+            this.startTag = startTag;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 排队耗时记录器，保留最近的固定数量样本用于计算分位数
+     */
+    private static class WaitRecorder {
+        private final long[] samples = new long[WAIT_SAMPLE_SIZE];
+        private long count;
+        private long maxNanos;
+
+        void record(long waitNanos) {
+            samples[(int) (count % WAIT_SAMPLE_SIZE)] = waitNanos;
+            count++;
+            maxNanos = Math.max(maxNanos, waitNanos);
+        }
+
+        QueueWaitStats snapshot() {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, WAIT_SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            return new QueueWaitStats(count, percentile(sorted, 0.50), percentile(sorted, 0.99), maxNanos / 1_000_000.0);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
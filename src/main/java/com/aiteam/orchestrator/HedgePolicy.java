@@ -0,0 +1,91 @@
+package com.aiteam.orchestrator;
+
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对冲执行策略
+ * 按角色记录最近的任务执行耗时，任务执行超过该角色的p95耗时仍未结束时，
+ * 允许在另一个代理实例上启动一次对冲尝试；每个角色的对冲次数受预算限制：
+ * 每次主尝试积累hedge-budget个额度，对冲消耗一个额度，额度有上限，避免长时间空闲后集中对冲
+ */
+class HedgePolicy {
+
+    private static final int SAMPLE_SIZE = 256;     // 每个角色保留的耗时样本数
+    private static final double MAX_TOKENS = 10;     // 每个角色最多积累的对冲额度
+
+    private final Map<String, RoleStats> stats = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final double budget;
+    private final int minSamples;
+
+    HedgePolicy(OrchestratorProperties properties) {
+        this.enabled = properties.isHedgingEnabled();
+        this.budget = properties.getHedgeBudget();
+        this.minSamples = properties.getHedgeMinSamples();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次成功执行的耗时
+     */
+    void recordDuration(String role, long durationMillis) {
+        RoleStats roleStats = stats(role);
+        synchronized (roleStats) {
+            roleStats.samples[(int) (roleStats.count % SAMPLE_SIZE)] = durationMillis;
+            roleStats.count++;
+        }
+    }
+
+    /**
+     * 主尝试派发后多久启动对冲尝试(毫秒)，样本不足时返回-1
+     * 派发一次主尝试的同时为该角色积累对冲额度
+     */
+    long hedgeDelay(String role) {
+        RoleStats roleStats = stats(role);
+        long[] sorted;
+        synchronized (roleStats) {
+            roleStats.tokens = Math.min(roleStats.tokens + budget, MAX_TOKENS);
+            if (roleStats.count < minSamples) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(roleStats.samples, (int) Math.min(roleStats.count, SAMPLE_SIZE));
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(0.95 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    /**
+     * 尝试消耗一个对冲额度
+     */
+    boolean tryAcquireHedge(String role) {
+        RoleStats roleStats = stats(role);
+        synchronized (roleStats) {
+            if (roleStats.tokens < 1) {
+                return false;
+            }
+            roleStats.tokens--;
+            return true;
+        }
+    }
+
+    private RoleStats stats(String role) {
+        return stats.computeIfAbsent(role, key -> new RoleStats());
+    }
+
+    /**
+     * 单个角色的耗时样本和对冲额度
+     */
+    private static class RoleStats {
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private long count;
+        private double tokens;
+    }
+}
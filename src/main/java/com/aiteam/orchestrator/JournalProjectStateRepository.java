@@ -0,0 +1,819 @@
+package com.aiteam.orchestrator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 基于本地追加日志的项目状态仓库，单节点部署时不需要Redis即可在重启后续传
+ * 所有项目的修改按顺序追加到内存映射的日志段文件(segment-{起始位置}.log)，每条记录为
+ * [长度][CRC32][类型, 项目ID, 内容]：完整保存的内容为任务数和StateCodec.encodeState编码（所有任务共用一个字符串表），
+ * 增量保存的内容为被修改任务的下标和StateCodec.encodeTask编码
+ * 内存中只保存每个项目最近一次完整编码、以及之后单独写入的任务编码在日志段或快照文件中的位置和长度，
+ * 读取时从映射的文件中解码完整编码，再按下标覆盖单独写入的任务，堆占用不随历史增长
+ * 写入方追加记录后等待落盘：同时等待的写入方由其中一个调用force()一起落盘，其余直接返回
+ * 日志段写满、距上次快照追加的记录数或经过的时间达到阈值时，由触发的写入方把所有项目的最新状态写入快照文件
+ * (snapshot-{日志位置}.bin)，每个项目一个完整编码：在锁内复制索引，在锁外合并、写入和落盘，之后删除快照之前的日志段和旧快照；
+ * 启动时加载最新快照，再重放快照之后的日志，遇到不完整或校验失败的记录即视为日志末尾
+ */
+class JournalProjectStateRepository implements ProjectStateRepository, AutoCloseable {
+
+    private static final int RECORD_HEADER_SIZE = 8;   // 记录长度和CRC32
+    private static final int SNAPSHOT_MAGIC = 0x50534E31;
+    private static final int SNAPSHOT_VERSION = 2;   // 版本1按任务保存编码，恢复时仍可读取
+
+    private static final byte RECORD_TASKS = 1;     // 写入被修改的任务
+    private static final byte RECORD_REPLACE = 2;   // 清空项目后按任务写入全部任务，只在重放旧日志时出现
+    private static final byte RECORD_DELETE = 3;    // 删除项目
+    private static final byte RECORD_STATE = 4;     // 清空项目后写入全部任务的完整编码
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int snapshotRecords;        // 距上次快照追加的记录数达到该值时写入快照，0表示不按记录数
+    private final long snapshotIntervalNanos; // 距上次快照经过该时间且有新记录时写入快照，0表示不按时间
+
+    // 以下字段在this上同步
+    private final Map<String, TaskLocations> projects = new HashMap<>();   // 项目ID -> 完整编码和单独写入的任务编码的位置
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();        // 起始位置 -> 日志段
+    private Segment active;
+    private ByteBuffer snapshotBuffer;       // 当前快照文件的只读映射，索引中的负位置指向其中
+    private long snapshotPosition;
+    private int recordsSinceSnapshot;
+    private long lastSnapshotNanos = System.nanoTime();
+    private boolean snapshotRequested;       // 日志段切换后需要写入快照
+
+    private final Object syncLock = new Object();                    // 同一时刻只有一个写入方执行force()
+    private final AtomicLong durablePosition = new AtomicLong();     // 已落盘的日志位置
+    private final AtomicBoolean snapshotting = new AtomicBoolean();  // 同一时刻只有一个写入方写入快照
+
+    JournalProjectStateRepository(Path directory, int segmentSize, int snapshotRecords, long snapshotIntervalMillis) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.snapshotRecords = snapshotRecords;
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMillis);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new StateStoreException("Failed to open state journal: " + directory, e);
+        }
+    }
+
+    @Override
+    public void save(ProjectState state) {
+        // 先清除未持久化标记再生成快照，快照之后的修改留到下一次增量保存
+        long[] flushed = state.drainUnflushed();
+        try {
+            ProjectStateSnapshot snapshot = state.snapshot();
+            String projectId = snapshot.getProjectId();
+            int taskCount = snapshot.getTaskCount();
+            byte[] encoded = StateCodec.encodeState(snapshot);
+            byte[] payload = encodeStateRecord(projectId, taskCount, encoded);
+            int stateOffset = payload.length - encoded.length;
+            write(projectId, payload, payloadPosition -> projects.computeIfAbsent(projectId, id -> new TaskLocations())
+                .replace(payloadPosition + stateOffset, encoded.length, taskCount));
+        } catch (RuntimeException e) {
+            state.restoreUnflushed(flushed);
+            throw e;
+        }
+    }
+
+    @Override
+    public void saveDelta(ProjectState state, ProjectStateDelta delta) {
+        write(RECORD_TASKS, delta.getProjectId(), delta.getSlots(), delta.getChangedTasks());
+    }
+
+    @Override
+    public ProjectState load(String projectId) {
+        TaskLocations tasks;
+        TreeMap<Long, Segment> sources;
+        ByteBuffer snapshot;
+        synchronized (this) {
+            TaskLocations current = projects.get(projectId);
+            if (current == null) {
+                return null;
+            }
+            // 锁内只复制位置，锁外读取和解码；被压缩删除的文件在映射释放前仍可读取
+            tasks = current.copy();
+            sources = new TreeMap<>(segments);
+            snapshot = snapshotBuffer;
+        }
+
+        ProjectState state = decodeProject(projectId, tasks, sources, snapshot);
+        state.markFlushed();
+        return state;
+    }
+
+    @Override
+    public void delete(String projectId) {
+        write(RECORD_DELETE, projectId, new int[0], List.of());
+    }
+
+    @Override
+    public synchronized boolean exists(String projectId) {
+        return projects.containsKey(projectId);
+    }
+
+    /**
+     * 落盘已写入的日志，之后的写入会失败
+     */
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (active != null) {
+                    active.buffer.force();
+                    durablePosition.accumulateAndGet(active.end(), Math::max);
+                    active = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 追加一条记录并等待落盘，成功后更新内存中的项目状态；达到快照条件时由当前线程写入快照
+     */
+    private void write(byte type, String projectId, int[] slots, List<Task> tasks) {
+        byte[][] encoded = new byte[tasks.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = StateCodec.encodeTask(tasks.get(i));
+        }
+        int[] taskOffsets = new int[encoded.length];
+        byte[] payload = encodeRecord(type, projectId, slots, encoded, taskOffsets);
+        write(projectId, payload, payloadPosition -> apply(type, projectId, slots, payloadPosition, taskOffsets, encoded));
+    }
+
+    /**
+     * 追加编码好的记录内容，index在this锁内以记录内容的日志位置更新索引
+     */
+    private void write(String projectId, byte[] payload, LongConsumer index) {
+        long end;
+        boolean snapshotDue;
+        try {
+            synchronized (this) {
+                long payloadPosition = append(payload) + RECORD_HEADER_SIZE;
+                index.accept(payloadPosition);
+                end = payloadPosition + payload.length;
+                recordsSinceSnapshot++;
+                snapshotDue = snapshotDue();
+            }
+            awaitDurable(end);
+        } catch (IOException | UncheckedIOException e) {
+            throw new StateStoreException("Failed to write state journal: " + projectId, e);
+        }
+        if (snapshotDue) {
+            snapshot();
+        }
+    }
+
+    /**
+     * 追加记录，返回记录开始的日志位置；当前段剩余空间不足时先切换日志段。调用方需持有this锁
+     */
+    private long append(byte[] payload) throws IOException {
+        if (active == null) {
+            throw new StateStoreException("State journal is closed: " + directory);
+        }
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (active.remaining() < recordSize) {
+            roll(recordSize);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writeOffset;
+        // 先写内容再写长度，进程在写入中途退出时长度仍为0；系统崩溃导致的部分写入由CRC32检出，恢复时都视为日志末尾
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.put(offset + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(offset, payload.length);
+        active.writeOffset += recordSize;
+        return active.base + offset;
+    }
+
+    /**
+     * 等待日志落盘到指定位置：没有其他写入方在落盘时由当前线程落盘当前段已写入的全部记录，
+     * 否则等其完成，多数情况下自己的记录已包含在内
+     */
+    private void awaitDurable(long position) {
+        if (durablePosition.get() >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durablePosition.get() >= position) {
+                return;
+            }
+            Segment segment;
+            long end;
+            synchronized (this) {
+                segment = active;
+                if (segment == null) {
+                    throw new StateStoreException("State journal is closed: " + directory);
+                }
+                end = segment.base + segment.writeOffset;
+            }
+            int from = (int) (Math.max(durablePosition.get(), segment.base) - segment.base);
+            segment.buffer.force(from, (int) (end - segment.base) - from);
+            durablePosition.accumulateAndGet(end, Math::max);
+        }
+    }
+
+    /**
+     * 切换到新的日志段，并请求在本次写入之后写入快照。调用方需持有this锁
+     */
+    private void roll(int recordSize) throws IOException {
+        active.buffer.force();
+        durablePosition.accumulateAndGet(active.end(), Math::max);
+
+        long base = active.end();
+        active = Segment.create(segmentPath(base), base, Math.max(segmentSize, recordSize));
+        segments.put(base, active);
+        snapshotRequested = true;
+    }
+
+    /**
+     * 是否需要写入快照：日志段已切换，或距上次快照的记录数、时间达到阈值。调用方需持有this锁
+     */
+    private boolean snapshotDue() {
+        if (snapshotRequested) {
+            return true;
+        }
+        if (snapshotRecords > 0 && recordsSinceSnapshot >= snapshotRecords) {
+            return true;
+        }
+        return snapshotIntervalNanos > 0 && recordsSinceSnapshot > 0
+            && System.nanoTime() - lastSnapshotNanos >= snapshotIntervalNanos;
+    }
+
+    /**
+     * 写入快照：锁内复制索引和当前日志位置，锁外读取任务编码、写入文件并落盘，
+     * 之后在锁内把未被修改的任务指向新快照，并删除快照之前的日志段和旧快照。其他线程正在写入快照时直接返回
+     * 记录已经落盘，写入快照失败不影响本次写入，下一次写入时重试
+     */
+    private void snapshot() {
+        if (!snapshotting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException | UncheckedIOException | StateStoreException e) {
+            System.out.println("Failed to write state snapshot: " + e.getMessage());
+            synchronized (this) {
+                snapshotRequested = true;
+            }
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        long position;
+        Map<String, TaskLocations> originals = new HashMap<>();
+        Map<String, TaskLocations> copy = new HashMap<>();
+        TreeMap<Long, Segment> sources;
+        ByteBuffer previous;
+        synchronized (this) {
+            if (active == null) {
+                return;
+            }
+            position = active.base + active.writeOffset;
+            if (position == snapshotPosition) {
+                snapshotRequested = false;
+                return;
+            }
+            for (Map.Entry<String, TaskLocations> project : projects.entrySet()) {
+                originals.put(project.getKey(), project.getValue());
+                copy.put(project.getKey(), project.getValue().copy());
+            }
+            // 日志段只在写入快照后删除，锁外读取复制的段表是安全的
+            sources = new TreeMap<>(segments);
+            previous = snapshotBuffer;
+            snapshotRequested = false;
+            recordsSinceSnapshot = 0;
+            lastSnapshotNanos = System.nanoTime();
+        }
+
+        Map<String, StateLocation> written = new HashMap<>();
+        Path target = writeSnapshotFile(position, copy, sources, previous, written);
+        ByteBuffer mapped = map(target);
+
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, StateLocation> project : written.entrySet()) {
+                // 写入快照期间被删除后重新创建的项目不使用快照中的编码
+                TaskLocations current = projects.get(project.getKey());
+                if (current != null && current == originals.get(project.getKey())) {
+                    current.moveUnchanged(copy.get(project.getKey()), project.getValue());
+                }
+            }
+            snapshotBuffer = mapped;
+            snapshotPosition = position;
+            while (!segments.isEmpty() && segments.firstEntry().getValue() != active
+                    && segments.firstEntry().getValue().end() <= snapshotPosition) {
+                obsolete.add(segmentPath(segments.pollFirstEntry().getValue().base));
+            }
+        }
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+        deleteSnapshotsBefore(position);
+    }
+
+    /**
+     * 写入快照文件并落盘，written中记录每个项目的完整编码在快照文件中的位置，返回快照文件路径
+     * 自上次完整编码以来没有单独写入任务的项目直接复制完整编码，其余项目合并后重新编码
+     */
+    private Path writeSnapshotFile(long position, Map<String, TaskLocations> copy, TreeMap<Long, Segment> sources,
+                               ByteBuffer previous, Map<String, StateLocation> written) throws IOException {
+        Path target = snapshotPath(position);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(nonClosing(channel), crc)));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(position);
+            out.writeInt(copy.size());
+            for (Map.Entry<String, TaskLocations> project : copy.entrySet()) {
+                TaskLocations tasks = project.getValue();
+                byte[] encoded;
+                int taskCount;
+                if (tasks.size == 0 && tasks.baseLength >= 0) {
+                    encoded = read(source(tasks.basePosition, sources, previous), offset(tasks.basePosition, sources),
+                        tasks.baseLength);
+                    taskCount = tasks.baseCount;
+                } else {
+                    ProjectStateSnapshot merged = decodeProject(project.getKey(), tasks, sources, previous).snapshot();
+                    encoded = StateCodec.encodeState(merged);
+                    taskCount = merged.getTaskCount();
+                }
+                out.writeUTF(project.getKey());
+                out.writeInt(taskCount);
+                out.writeInt(encoded.length);
+                if ((long) out.size() + encoded.length > Integer.MAX_VALUE) {
+                    // 快照文件以单个只读映射读取
+                    throw new StateStoreException("State snapshot exceeds 2GB: " + target);
+                }
+                written.put(project.getKey(), new StateLocation(snapshotLocation(out.size()), encoded.length, taskCount));
+                out.write(encoded);
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(8).putLong(0, crc.getValue()));
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        return target;
+    }
+
+    private void deleteSnapshotsBefore(long position) throws IOException {
+        for (Path snapshot : listFiles("snapshot-", ".bin")) {
+            if (parsePosition(snapshot, "snapshot-", ".bin") < position) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    /**
+     * 加载最新快照，重放之后的日志，并打开最后一个日志段继续写入
+     */
+    private void recover() throws IOException {
+        List<Path> snapshots = listFiles("snapshot-", ".bin");
+        if (!snapshots.isEmpty()) {
+            readSnapshot(snapshots.get(snapshots.size() - 1));
+        }
+        for (Path tmp : listFiles("snapshot-", ".bin.tmp")) {
+            Files.deleteIfExists(tmp);
+        }
+
+        for (Path path : listFiles("segment-", ".log")) {
+            long base = parsePosition(path, "segment-", ".log");
+            segments.put(base, Segment.open(path, base));
+        }
+
+        boolean truncated = false;
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (truncated) {
+                // 中间记录损坏后的日志段无法按顺序重放
+                System.out.println("Discarding state journal segment after corrupted record: " + segmentPath(segment.base));
+                segments.remove(segment.base);
+                Files.deleteIfExists(segmentPath(segment.base));
+                continue;
+            }
+            if (segment.end() <= snapshotPosition) {
+                continue;
+            }
+            int offset = (int) Math.max(0, snapshotPosition - segment.base);
+            truncated = replay(segment, offset);
+        }
+        while (!segments.isEmpty() && segments.firstEntry().getValue().end() <= snapshotPosition) {
+            Files.deleteIfExists(segmentPath(segments.pollFirstEntry().getValue().base));
+        }
+        deleteSnapshotsBefore(snapshotPosition);
+
+        if (segments.isEmpty()) {
+            active = Segment.create(segmentPath(snapshotPosition), snapshotPosition, segmentSize);
+            segments.put(snapshotPosition, active);
+        } else {
+            active = segments.lastEntry().getValue();
+            // 清除末尾可能残留的半条记录，避免之后追加的记录与其拼接
+            byte[] zeros = new byte[64 * 1024];
+            for (int i = active.writeOffset; i < active.buffer.capacity(); i += zeros.length) {
+                active.buffer.put(i, zeros, 0, Math.min(zeros.length, active.buffer.capacity() - i));
+            }
+            active.buffer.force();
+        }
+        durablePosition.set(active.base + active.writeOffset);
+        syncDirectory();
+    }
+
+    /**
+     * 从指定偏移重放日志段中的记录，返回是否遇到了损坏的记录
+     */
+    private boolean replay(Segment segment, int offset) {
+        MappedByteBuffer buffer = segment.buffer;
+        while (segment.buffer.capacity() - offset >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.capacity() - offset - RECORD_HEADER_SIZE) {
+                segment.writeOffset = offset;
+                return true;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                segment.writeOffset = offset;
+                return true;
+            }
+            applyRecord(buffer, offset + RECORD_HEADER_SIZE, segment.base + offset + RECORD_HEADER_SIZE);
+            offset += RECORD_HEADER_SIZE + length;
+            recordsSinceSnapshot++;
+        }
+        segment.writeOffset = offset;
+        return false;
+    }
+
+    private void readSnapshot(Path path) throws IOException {
+        ByteBuffer buffer = map(path);
+        int size = buffer.capacity() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, Math.max(size, 0)));
+        if (size < 20 || crc.getValue() != buffer.getLong(size)) {
+            throw new StateStoreException("Corrupted state snapshot: " + path);
+        }
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != SNAPSHOT_MAGIC || version < 1 || version > SNAPSHOT_VERSION) {
+            throw new StateStoreException("Unsupported state snapshot: " + path);
+        }
+        long position = buffer.getLong(8);
+        int projectCount = buffer.getInt(16);
+        int offset = 20;
+        for (int p = 0; p < projectCount; p++) {
+            // 项目ID由DataOutputStream.writeUTF()写入：两字节长度后接修改版UTF-8
+            int idLength = 2 + Short.toUnsignedInt(buffer.getShort(offset));
+            String projectId = new DataInputStream(new ByteArrayInputStream(read(buffer, offset, idLength))).readUTF();
+            offset += idLength;
+            int taskCount = buffer.getInt(offset);
+            offset += 4;
+            TaskLocations tasks = new TaskLocations();
+            if (version == 1) {
+                // 版本1：每个任务单独的编码
+                for (int slot = 0; slot < taskCount; slot++) {
+                    int length = buffer.getInt(offset);
+                    offset += 4;
+                    if (length >= 0) {
+                        tasks.set(slot, snapshotLocation(offset), length);
+                        offset += length;
+                    }
+                }
+            } else {
+                int length = buffer.getInt(offset);
+                offset += 4;
+                tasks.replace(snapshotLocation(offset), length, taskCount);
+                offset += length;
+            }
+            projects.put(projectId, tasks);
+        }
+        snapshotBuffer = buffer;
+        snapshotPosition = position;
+    }
+
+    private void applyRecord(ByteBuffer buffer, int offset, long position) {
+        ByteBuffer record = buffer.slice(offset, buffer.capacity() - offset);
+        byte type = record.get();
+        byte[] id = new byte[record.getInt()];
+        record.get(id);
+        int count = record.getInt();
+        int[] slots = new int[count];
+        int[] taskOffsets = new int[count];
+        int[] lengths = new int[count];
+        String projectId = new String(id, StandardCharsets.UTF_8);
+        if (type == RECORD_STATE) {
+            // 完整编码：任务数、编码长度和编码
+            int length = record.getInt();
+            projects.computeIfAbsent(projectId, key -> new TaskLocations()).replace(position + record.position(), length, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            slots[i] = record.getInt();
+            lengths[i] = record.getInt();
+            taskOffsets[i] = record.position();
+            record.position(record.position() + lengths[i]);
+        }
+        if (type == RECORD_DELETE) {
+            projects.remove(projectId);
+            return;
+        }
+        TaskLocations tasks = projects.computeIfAbsent(projectId, key -> new TaskLocations());
+        if (type == RECORD_REPLACE) {
+            tasks.clear();
+        }
+        for (int i = 0; i < count; i++) {
+            tasks.set(slots[i], position + taskOffsets[i], lengths[i]);
+        }
+    }
+
+    /**
+     * 把刚追加的记录应用到索引，任务位置为记录内容的日志位置加任务编码在记录中的偏移。调用方需持有this锁
+     */
+    private void apply(byte type, String projectId, int[] slots, long payloadPosition, int[] taskOffsets, byte[][] encoded) {
+        if (type == RECORD_DELETE) {
+            projects.remove(projectId);
+            return;
+        }
+        TaskLocations tasks = projects.computeIfAbsent(projectId, id -> new TaskLocations());
+        for (int i = 0; i < slots.length; i++) {
+            tasks.set(slots[i], payloadPosition + taskOffsets[i], encoded[i].length);
+        }
+    }
+
+    /**
+     * 编码记录内容，taskOffsets中填入每个任务编码在记录内容中的偏移
+     */
+    private static byte[] encodeRecord(byte type, String projectId, int[] slots, byte[][] tasks, int[] taskOffsets) {
+        byte[] id = projectId.getBytes(StandardCharsets.UTF_8);
+        int size = 1 + 4 + id.length + 4;
+        for (byte[] task : tasks) {
+            size += 8 + task.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(type).putInt(id.length).put(id).putInt(tasks.length);
+        for (int i = 0; i < tasks.length; i++) {
+            buffer.putInt(slots[i]).putInt(tasks[i].length);
+            taskOffsets[i] = buffer.position();
+            buffer.put(tasks[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 编码完整保存的记录内容：类型、项目ID、任务数、编码长度和编码，编码位于记录内容的末尾
+     */
+    private static byte[] encodeStateRecord(String projectId, int taskCount, byte[] state) {
+        byte[] id = projectId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + id.length + 4 + 4 + state.length);
+        buffer.put(RECORD_STATE).putInt(id.length).put(id).putInt(taskCount).putInt(state.length).put(state);
+        return buffer.array();
+    }
+
+    /**
+     * 按位置读取项目的全部任务：先解码完整编码，再按下标依次覆盖之后单独写入的任务
+     */
+    private static ProjectState decodeProject(String projectId, TaskLocations tasks, TreeMap<Long, Segment> segments,
+                                              ByteBuffer snapshot) {
+        ProjectState state = tasks.baseLength >= 0
+            ? StateCodec.decodeState(read(source(tasks.basePosition, segments, snapshot),
+                offset(tasks.basePosition, segments), tasks.baseLength))
+            : new ProjectState(projectId);
+        for (int slot = 0; slot < tasks.size; slot++) {
+            int length = tasks.lengths[slot];
+            if (length >= 0) {
+                long location = tasks.positions[slot];
+                state.addTask(StateCodec.decodeTask(read(source(location, segments, snapshot), offset(location, segments), length)));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 任务编码所在的映射：非负位置为日志位置，在所属日志段中；负位置在快照文件中
+     */
+    private static ByteBuffer source(long location, TreeMap<Long, Segment> segments, ByteBuffer snapshot) {
+        return location < 0 ? snapshot : segments.floorEntry(location).getValue().buffer;
+    }
+
+    private static int offset(long location, TreeMap<Long, Segment> segments) {
+        return location < 0 ? (int) (-location - 1) : (int) (location - segments.floorKey(location));
+    }
+
+    private static long snapshotLocation(int offset) {
+        return -(offset + 1L);
+    }
+
+    private static byte[] read(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new StateStoreException("State snapshot exceeds 2GB: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private List<Path> listFiles(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(prefix) && name.endsWith(suffix);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("segment-%020d.log", base));
+    }
+
+    private Path snapshotPath(long position) {
+        return directory.resolve(String.format("snapshot-%020d.bin", position));
+    }
+
+    private static long parsePosition(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    private static OutputStream nonClosing(FileChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+
+    /**
+     * 一个项目的编码位置：最近一次完整编码的位置、长度和任务数，以及之后单独写入的任务编码，按下标排列；
+     * 没有完整编码时baseLength为-1，单独编码中长度为-1的下标使用完整编码中的任务
+     */
+    private static class TaskLocations {
+        long basePosition;
+        int baseLength = -1;
+        int baseCount;
+        long[] positions = new long[8];
+        int[] lengths = new int[8];
+        int size;
+
+        void set(int slot, long position, int length) {
+            if (slot >= positions.length) {
+                int capacity = Math.max(slot + 1, positions.length * 2);
+                positions = Arrays.copyOf(positions, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            if (slot >= size) {
+                Arrays.fill(lengths, size, slot, -1);
+                size = slot + 1;
+            }
+            positions[slot] = position;
+            lengths[slot] = length;
+        }
+
+        /**
+         * 完整保存：丢弃之前的所有编码
+         */
+        void replace(long position, int length, int taskCount) {
+            basePosition = position;
+            baseLength = length;
+            baseCount = taskCount;
+            size = 0;
+        }
+
+        void clear() {
+            baseLength = -1;
+            baseCount = 0;
+            size = 0;
+        }
+
+        TaskLocations copy() {
+            TaskLocations copy = new TaskLocations();
+            copy.basePosition = basePosition;
+            copy.baseLength = baseLength;
+            copy.baseCount = baseCount;
+            copy.positions = Arrays.copyOf(positions, Math.max(size, 1));
+            copy.lengths = Arrays.copyOf(lengths, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        /**
+         * 写入快照期间没有被完整保存的项目改为以快照中的编码为完整编码，
+         * 已经合并进快照的单独编码被丢弃；日志位置唯一，位置未变即内容未变
+         */
+        void moveUnchanged(TaskLocations before, StateLocation moved) {
+            if (basePosition != before.basePosition || baseLength != before.baseLength) {
+                return;
+            }
+            int count = Math.min(size, before.size);
+            for (int slot = 0; slot < count; slot++) {
+                if (lengths[slot] >= 0 && positions[slot] == before.positions[slot]) {
+                    lengths[slot] = -1;
+                }
+            }
+            while (size > 0 && lengths[size - 1] < 0) {
+                size--;
+            }
+            basePosition = moved.position();
+            baseLength = moved.length();
+            baseCount = moved.taskCount();
+        }
+    }
+
+    /**
+     * 快照文件中一个项目的完整编码
+     */
+    private record StateLocation(long position, int length, int taskCount) {
+    }
+
+    /**
+     * 一个内存映射的日志段，文件创建时按段大小预分配
+     */
+    private static class Segment {
+        final long base;                 // 段起始的日志位置
+        final MappedByteBuffer buffer;
+        int writeOffset;                 // 段内下一条记录的偏移
+
+        private Segment(long base, MappedByteBuffer buffer) {
+            this.base = base;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, long base, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path path, long base) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - writeOffset;
+        }
+
+        long end() {
+            return base + buffer.capacity();
+        }
+    }
+}
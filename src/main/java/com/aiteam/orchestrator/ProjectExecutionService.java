@@ -0,0 +1,147 @@
+package com.aiteam.orchestrator;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 项目执行服务，在后台线程上运行项目，HTTP请求线程提交后立即返回执行句柄
+ */
+@Service
+public class ProjectExecutionService {
+
+    private static final int MAX_FINISHED_EXECUTIONS = 256;   // 保留的已结束执行数
+
+    private final AgentOrchestrator orchestrator;
+    private final ProjectStateRepository stateRepository;
+    private final Map<String, ExecutionHandle> executions;          // 项目ID -> 执行中的句柄
+    private final Map<String, ExecutionHandle> finishedExecutions;  // 项目ID -> 最近结束的句柄，受自身锁保护
+    private final ExecutorService projectRunner;
+
+    public ProjectExecutionService(AgentOrchestrator orchestrator, ProjectStateRepository stateRepository) {
+        this.orchestrator = orchestrator;
+        this.stateRepository = stateRepository;
+        this.executions = new ConcurrentHashMap<>();
+        // 结束的句柄移出executions，只保留最近访问的一部分供查询执行结果，超出上限时淘汰最久未访问的
+        this.finishedExecutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExecutionHandle> eldest) {
+                return size() > MAX_FINISHED_EXECUTIONS;
+            }
+        };
+        // 调度线程大部分时间阻塞在等待任务结果上，使用虚拟线程不占用平台线程
+        this.projectRunner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("project-runner-", 1).factory());
+    }
+
+    /**
+     * 提交项目执行
+     */
+    public ExecutionHandle submit(ProjectPlan projectPlan) {
+        ProjectState state = orchestrator.createProjectState(projectPlan);
+        return start(projectPlan.getProjectId(), state, liveState -> orchestrator.executeProject(projectPlan, liveState));
+    }
+
+    /**
+     * 提交断点续传
+     */
+    public ExecutionHandle resume(String projectId) {
+        ProjectState state = stateRepository.load(projectId);
+        if (state == null) {
+            ExecutionHandle previous = getExecution(projectId);
+            state = previous != null ? previous.getState() : null;
+        }
+        if (state == null) {
+            throw new AgentOrchestrator.OrchestratorException("Project state not found: " + projectId);
+        }
+        return start(projectId, state, orchestrator::resumeExecution);
+    }
+
+    /**
+     * 取消项目执行，返回被取消的执行句柄；没有执行记录时返回null
+     * 取消是异步完成的，句柄状态在执行线程退出后变为CANCELLED
+     */
+    public ExecutionHandle cancel(String projectId) {
+        ExecutionHandle handle = getExecution(projectId);
+        if (handle == null) {
+            return null;
+        }
+        // 与执行结束互斥，避免已结束的执行留下未消费的取消请求
+        synchronized (handle) {
+            if (handle.isActive() && !handle.isCancelRequested()) {
+                handle.markCancelRequested();
+                orchestrator.cancelExecution(projectId);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * 获取项目最近一次执行，没有时返回null
+     * 已结束的执行只保留最近的MAX_FINISHED_EXECUTIONS个
+     */
+    public ExecutionHandle getExecution(String projectId) {
+        ExecutionHandle handle = executions.get(projectId);
+        if (handle != null) {
+            return handle;
+        }
+        synchronized (finishedExecutions) {
+            return finishedExecutions.get(projectId);
+        }
+    }
+
+    private ExecutionHandle start(String projectId, ProjectState state, Consumer<ProjectState> body) {
+        ExecutionHandle handle = new ExecutionHandle(UUID.randomUUID().toString(), projectId, state);
+
+        ExecutionHandle existing = executions.compute(projectId,
+            (id, current) -> current != null && current.isActive() ? current : handle);
+        if (existing != handle) {
+            throw new AgentOrchestrator.OrchestratorException("Project is already executing: " + projectId);
+        }
+
+        orchestrator.queueExecution(projectId);
+        projectRunner.execute(() -> {
+            handle.markRunning();
+            try {
+                body.accept(state);
+                synchronized (handle) {
+                    orchestrator.clearCancelRequest(projectId);
+                    handle.markFinished();
+                }
+            } catch (Exception e) {
+                synchronized (handle) {
+                    orchestrator.clearCancelRequest(projectId);
+                    handle.markFailed(e.getMessage());
+                }
+                System.out.println("Project execution failed: " + projectId + " - " + e.getMessage());
+            } finally {
+                retire(handle);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * 执行结束后把句柄从执行中移到最近结束的记录，先记录再移除，查询不会出现空档
+     */
+    private void retire(ExecutionHandle handle) {
+        synchronized (finishedExecutions) {
+            finishedExecutions.put(handle.getProjectId(), handle);
+        }
+        executions.remove(handle.getProjectId(), handle);
+    }
+
+    /**
+     * 关闭后台执行线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        projectRunner.shutdownNow();
+    }
+}
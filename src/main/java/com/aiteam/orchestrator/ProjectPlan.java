@@ -61,7 +61,7 @@ public class ProjectPlan {
     public Map<String, List<String>> getDependents() {
         return tasks.stream()
             .flatMap(task -> task.getDependencies().stream()
-                .map(depId -> java.util.AbstractMap.SimpleImmutableEntry.of(depId, task.getId())))
+                .map(depId -> new java.util.AbstractMap.SimpleImmutableEntry<>(depId, task.getId())))
             .collect(Collectors.groupingBy(
                 java.util.AbstractMap.SimpleImmutableEntry::getKey,
                 Collectors.mapping(java.util.AbstractMap.SimpleImmutableEntry::getValue, Collectors.toList())
@@ -1,80 +1,341 @@
 package com.aiteam.orchestrator;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 项目状态类，维护全局上下文和持久化状态
+ * 任务按添加顺序分配连续下标，数据按固定大小的数据块存放；写操作原地修改数据块并记录被修改的块，
+ * 读取方通过snapshot()获取某一版本的只读快照，新快照只复制上次快照以来被修改的数据块，其余块与上个快照共享
+ * 任务ID只在添加时映射为下标一次，状态（按序号存为byte）、重试次数和依赖关系都保存在以下标为索引的基本类型数组中
+ * 不保存Task对象：角色按编号、创建时间和超时按long、依赖按前置任务下标存放在元数据块中，
+ * 任务描述是唯一按任务保存的字符串；getTask()和快照在读取时按当前数据生成Task
+ * 任务状态转换（startTask、completeTask等）只原地修改基本类型数组并以纪元纳秒记录更新时间
+ *
+ * 任务生命周期为 PENDING -> RUNNING -> COMPLETED / FAILED / RETRYING，RETRYING -> RUNNING，
+ * 执行被中断时 RUNNING -> PENDING / RETRYING；状态转换通过对状态字节的CAS完成，不持有项目锁，
+ * 同一任务的同一转换只有一个调用方能成功，例如startTask保证任务只被派发一次
+ * 添加任务、生成快照等操作仍持有this锁；快照在复制期间没有进行中的修改且版本号不变时才算成功，否则退避后重新复制
+ * 每个任务另有一个未持久化标记，drainDelta()取出上次持久化以来被修改的任务，用于增量保存
  */
 public class ProjectState {
 
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;   // 每个数据块的任务数
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final Task.TaskStatus[] STATUSES = Task.TaskStatus.values();   // 状态序号 -> 状态
+    static final int UNRESOLVED = -1;                  // 依赖的任务尚未添加
+
+    private static final int[] NO_DEPENDENCIES = new int[0];
+    // System.nanoTime()到纪元纳秒的偏移量，避免每次状态转换都读取系统时钟并创建时间对象
+    private static final long EPOCH_NANOS_OFFSET = epochNanos(Instant.now()) - System.nanoTime();
+
+    // 状态转换允许的当前状态，按状态序号的位掩码表示
+    private static final int ANY_STATUS = (1 << STATUSES.length) - 1;
+    private static final int FROM_WAITING = mask(Task.TaskStatus.PENDING, Task.TaskStatus.RETRYING);
+    private static final int FROM_RUNNING = mask(Task.TaskStatus.RUNNING);
+
+    // 每个数据块的元数据：最近一次修改时的版本号、尚未持久化的任务位图
+    private static final int META_MODIFIED = 0;
+    private static final int META_UNFLUSHED = 1;
+    // 快照重试的退避：前几次自旋，之后按指数增长的时间挂起；
+    // 连续失败MAX_SNAPSHOT_ATTEMPTS次后让新的状态转换等待快照完成，避免持续写入时快照无法完成
+    private static final int SNAPSHOT_SPIN_ATTEMPTS = 4;
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 8;
+    private static final long MIN_SNAPSHOT_PARK_NANOS = 1_000;
+    private static final long MAX_SNAPSHOT_PARK_NANOS = 1_000_000;
+
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
     private final String projectId;
-    private final Map<String, Task> taskMap;           // 任务ID -> 任务
-    private final Map<String, Task.TaskStatus> statusMap;   // 快速状态查询
-    private final Map<String, Integer> retryCountMap; // 重试计数
-    private LocalDateTime lastUpdated;
-    private ProjectStatus overallStatus;
+    private final TaskIdTable ids;                     // 任务ID <-> 任务下标
+    // 以下数组只在持有this锁时扩容，扩容不替换已有的数据块，状态转换直接修改数据块
+    private volatile byte[][] statusChunks;            // 快速状态查询，保存状态序号
+    private volatile int[][] retryChunks;              // 重试计数
+    private volatile long[][] updatedChunks;           // 最近一次更新的纪元纳秒
+    private volatile long[][] chunkMeta;               // 数据块元数据，见META_*
+    private TaskMetadata[] metadataChunks;             // 任务的不可变信息，只在持有this锁时读写
+    private String[] roleNames;                        // 角色编号 -> 角色名，只追加
+    private final Map<String, Integer> roleIndex;      // 角色名 -> 角色编号
+    private int unresolvedDependencies;                // 尚未找到对应任务的依赖数
+    private final AtomicIntegerArray statusCounts;     // 各状态的任务数
+    private final AtomicLong version;                  // 每次修改递增
+    private final AtomicInteger activeWriters;         // 进行中的修改数
+    private volatile boolean snapshotPending;          // 快照等待中，新的状态转换暂缓开始
+    private ProjectStateSnapshot snapshot;             // 最近一次生成的快照，其数据块不再被修改
+    private long snapshotVersion;                      // 最近一次快照的版本号，之后修改过的数据块需要复制
+    private TaskMetadata[] frozenMetadataChunks;       // 已发布给快照的元数据块，写入前需要先复制
+    private byte[][] frozenStatusChunks;
+    private int[][] frozenRetryChunks;
+    private long[][] frozenUpdatedChunks;
+    private TaskIdTable frozenIds;
+    private volatile long lastUpdatedNanos;
 
     public ProjectState(String projectId) {
         this.projectId = projectId;
-        this.taskMap = new ConcurrentHashMap<>();
-        this.statusMap = new ConcurrentHashMap<>();
-        this.retryCountMap = new ConcurrentHashMap<>();
-        this.lastUpdated = LocalDateTime.now();
-        this.overallStatus = ProjectStatus.PENDING;
+        this.ids = new TaskIdTable();
+        this.statusChunks = new byte[0][];
+        this.retryChunks = new int[0][];
+        this.updatedChunks = new long[0][];
+        this.chunkMeta = new long[0][];
+        this.metadataChunks = new TaskMetadata[0];
+        this.roleNames = new String[0];
+        this.roleIndex = new HashMap<>();
+        this.statusCounts = new AtomicIntegerArray(STATUSES.length);
+        this.version = new AtomicLong();
+        this.activeWriters = new AtomicInteger();
+        this.snapshotVersion = -1;
+        this.frozenMetadataChunks = metadataChunks;
+        this.frozenStatusChunks = statusChunks;
+        this.frozenRetryChunks = retryChunks;
+        this.frozenUpdatedChunks = updatedChunks;
+        this.frozenIds = ids.copy();
+        this.lastUpdatedNanos = now();
+    }
+
+    /**
+     * 由快照创建独立的状态，各数据块都是新建的，修改不影响快照和生成快照的状态
+     * 与从存储加载的状态相同，所有任务都视为已持久化
+     */
+    static ProjectState fromSnapshot(ProjectStateSnapshot snapshot) {
+        ProjectState state = new ProjectState(snapshot.getProjectId());
+        for (Task task : snapshot.getTasks()) {
+            state.addTask(task);
+        }
+        state.markFlushed();
+        return state;
     }
 
     // Getters
     public String getProjectId() { return projectId; }
-    public Map<String, Task> getTaskMap() { return new ConcurrentHashMap<>(taskMap); }
-    public Map<String, Task.TaskStatus> getStatusMap() { return new ConcurrentHashMap<>(statusMap); }
-    public Map<String, Integer> getRetryCountMap() { return new ConcurrentHashMap<>(retryCountMap); }
-    public LocalDateTime getLastUpdated() { return lastUpdated; }
-    public ProjectStatus getOverallStatus() { return overallStatus; }
+    public LocalDateTime getLastUpdated() { return toLocalDateTime(lastUpdatedNanos); }
+
+    /**
+     * 项目整体状态，根据各状态计数计算，O(1)
+     */
+    public ProjectStatus getOverallStatus() {
+        return overallStatus(getTaskCount(), countTasks(Task.TaskStatus.COMPLETED), countTasks(Task.TaskStatus.FAILED));
+    }
+
+    /**
+     * 以下三个方法返回当前快照的只读视图，不复制数据；需要多次读取时应直接使用同一个snapshot()
+     */
+    public Map<String, Task> getTaskMap() { return snapshot().getTaskMap(); }
+    public Map<String, Task.TaskStatus> getStatusMap() { return snapshot().getStatusMap(); }
+    public Map<String, Integer> getRetryCountMap() { return snapshot().getRetryCountMap(); }
+
+    /**
+     * 获取当前版本的只读快照，自上次快照以来没有修改时直接返回上次的快照
+     * 新快照只复制被修改过的数据块，开销与修改量成正比，而不是与任务总数成正比
+     * 复制期间发生了状态转换时丢弃本次复制重新进行，保证快照中的各项数据属于同一版本；
+     * 重试之间先自旋再挂起，多次失败后新的状态转换阻塞在this锁上直到快照完成，
+     * 此时只需等待已经开始的转换结束，重试次数有上限
+     */
+    public synchronized ProjectStateSnapshot snapshot() {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                ProjectStateSnapshot copied = tryCopy();
+                if (copied != null) {
+                    return copied;
+                }
+                if (attempt == MAX_SNAPSHOT_ATTEMPTS) {
+                    snapshotPending = true;
+                }
+                backoff(attempt);
+            }
+        } finally {
+            snapshotPending = false;
+        }
+    }
+
+    private static void backoff(int attempt) {
+        if (attempt <= SNAPSHOT_SPIN_ATTEMPTS) {
+            Thread.onSpinWait();
+        } else {
+            int shift = Math.min(attempt - SNAPSHOT_SPIN_ATTEMPTS - 1, 10);
+            LockSupport.parkNanos(Math.min(MIN_SNAPSHOT_PARK_NANOS << shift, MAX_SNAPSHOT_PARK_NANOS));
+        }
+    }
+
+    /**
+     * 尝试复制一个一致的快照，复制期间有修改时返回null，调用方需持有this锁
+     */
+    private ProjectStateSnapshot tryCopy() {
+        long current = version.get();
+        if (snapshot != null && snapshot.getVersion() == current) {
+            return snapshot;
+        }
+        if (activeWriters.get() != 0) {
+            return null;
+        }
+
+        byte[][] liveStatuses = statusChunks;
+        int[][] liveRetries = retryChunks;
+        long[][] liveUpdated = updatedChunks;
+        long[][] meta = chunkMeta;
+        int chunkCount = liveStatuses.length;
+        byte[][] statuses = new byte[chunkCount][];
+        int[][] retries = new int[chunkCount][];
+        long[][] updated = new long[chunkCount][];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            if (chunk < frozenStatusChunks.length && (long) LONGS.getVolatile(meta[chunk], META_MODIFIED) <= snapshotVersion) {
+                statuses[chunk] = frozenStatusChunks[chunk];
+                retries[chunk] = frozenRetryChunks[chunk];
+                updated[chunk] = frozenUpdatedChunks[chunk];
+            } else {
+                statuses[chunk] = liveStatuses[chunk].clone();
+                retries[chunk] = liveRetries[chunk].clone();
+                updated[chunk] = liveUpdated[chunk].clone();
+            }
+        }
+        // 元数据块只在持有this锁时修改，已发布的块在修改前会被复制，快照直接共享当前的块
+        TaskMetadata[] metadata = metadataChunks.clone();
+        int[] counts = new int[STATUSES.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = statusCounts.get(i);
+        }
+        long lastUpdated = lastUpdatedNanos;
+
+        if (activeWriters.get() != 0 || version.get() != current) {
+            return null;
+        }
+        if (frozenIds.size() != ids.size()) {
+            frozenIds = ids.copy();
+        }
+        frozenMetadataChunks = metadata;
+        frozenStatusChunks = statuses;
+        frozenRetryChunks = retries;
+        frozenUpdatedChunks = updated;
+        snapshotVersion = current;
+
+        ProjectStatus overall = overallStatus(frozenIds.size(),
+            counts[Task.TaskStatus.COMPLETED.ordinal()], counts[Task.TaskStatus.FAILED.ordinal()]);
+        snapshot = new ProjectStateSnapshot(projectId, current, frozenIds, metadata, roleNames, statuses, retries,
+            updated, counts, overall, toLocalDateTime(lastUpdated));
+        return snapshot;
+    }
 
     // Task management
-    public void addTask(Task task) {
-        taskMap.put(task.getId(), task);
-        statusMap.put(task.getId(), task.getStatus());
-        retryCountMap.put(task.getId(), task.getRetryCount());
-        updateOverallStatus();
+    public synchronized void addTask(Task task) {
+        int slot = ids.slotOf(task.getId());
+        write(slot >= 0 ? slot : allocate(task.getId()), task);
     }
 
-    public void updateTask(Task updatedTask) {
-        taskMap.put(updatedTask.getId(), updatedTask);
-        statusMap.put(updatedTask.getId(), updatedTask.getStatus());
-        retryCountMap.put(updatedTask.getId(), updatedTask.getRetryCount());
-        updateOverallStatus();
-        lastUpdated = LocalDateTime.now();
+    public synchronized void updateTask(Task updatedTask) {
+        int slot = ids.slotOf(updatedTask.getId());
+        write(slot >= 0 ? slot : allocate(updatedTask.getId()), updatedTask);
+        lastUpdatedNanos = now();
     }
 
-    public Task getTask(String taskId) {
-        return taskMap.get(taskId);
+    /**
+     * 按当前数据生成任务的不可变视图，每次调用返回新的Task对象
+     */
+    public synchronized Task getTask(String taskId) {
+        int slot = ids.slotOf(taskId);
+        if (slot < 0) {
+            return null;
+        }
+        int chunk = slot >> CHUNK_SHIFT;
+        int offset = slot & CHUNK_MASK;
+        return metadataChunks[chunk].toTask(offset, taskId, ids, roleNames, statusAt(slot),
+            (int) INTS.getVolatile(retryChunks[chunk], offset), (long) LONGS.getVolatile(updatedChunks[chunk], offset));
     }
 
     public boolean hasTask(String taskId) {
-        return taskMap.containsKey(taskId);
+        return ids.slotOf(taskId) >= 0;
     }
 
     // Status management
+    /**
+     * 不检查当前状态直接设置任务状态，用于恢复或修正状态；执行过程中的状态变化应使用下面的生命周期方法
+     */
     public void updateTaskStatus(String taskId, Task.TaskStatus status) {
-        statusMap.put(taskId, status);
-        updateOverallStatus();
+        transition(taskId, ANY_STATUS, status, 0);
+    }
+
+    // State transitions
+    /**
+     * 任务开始执行：PENDING或RETRYING -> RUNNING
+     * @return 是否由本次调用完成了转换，多个调用方同时派发同一任务时只有一个返回true
+     */
+    public boolean startTask(String taskId) {
+        return transition(taskId, FROM_WAITING, Task.TaskStatus.RUNNING, 0);
+    }
+
+    /**
+     * 任务完成：RUNNING -> COMPLETED
+     */
+    public boolean completeTask(String taskId) {
+        return transition(taskId, FROM_RUNNING, Task.TaskStatus.COMPLETED, 0);
+    }
+
+    /**
+     * 任务失败：RUNNING -> FAILED
+     */
+    public boolean failTask(String taskId) {
+        return transition(taskId, FROM_RUNNING, Task.TaskStatus.FAILED, 0);
+    }
+
+    /**
+     * 任务重试：RUNNING -> RETRYING，重试次数加一
+     */
+    public boolean retryTask(String taskId) {
+        return transition(taskId, FROM_RUNNING, Task.TaskStatus.RETRYING, 1);
+    }
+
+    /**
+     * 执行被中断的任务恢复为派发前的状态：RUNNING -> 重试过的任务为RETRYING，否则为PENDING
+     */
+    public boolean resetTask(String taskId) {
+        int slot = ids.slotOf(taskId);
+        if (slot < 0) {
+            return false;
+        }
+        boolean retried = (int) INTS.getVolatile(retryChunks[slot >> CHUNK_SHIFT], slot & CHUNK_MASK) > 0;
+        return transition(slot, FROM_RUNNING, retried ? Task.TaskStatus.RETRYING : Task.TaskStatus.PENDING, 0);
     }
 
     public Task.TaskStatus getTaskStatus(String taskId) {
-        return statusMap.getOrDefault(taskId, Task.TaskStatus.PENDING);
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 ? statusAt(slot) : Task.TaskStatus.PENDING;
+    }
+
+    /**
+     * 处于指定状态的任务数，O(1)
+     */
+    public int countTasks(Task.TaskStatus status) {
+        return statusCounts.get(status.ordinal());
+    }
+
+    /**
+     * 任务总数
+     */
+    public int getTaskCount() {
+        return ids.size();
     }
 
     // Retry management
     public void incrementRetryCount(String taskId) {
-        int current = retryCountMap.getOrDefault(taskId, 0);
-        retryCountMap.put(taskId, current + 1);
+        transition(taskId, ANY_STATUS, null, 1);
     }
 
     public int getRetryCount(String taskId) {
-        return retryCountMap.getOrDefault(taskId, 0);
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 ? (int) INTS.getVolatile(retryChunks[slot >> CHUNK_SHIFT], slot & CHUNK_MASK) : 0;
     }
 
     // Completion checks
@@ -83,32 +344,149 @@ public class ProjectState {
     }
 
     public boolean isProjectCompleted() {
-        return overallStatus == ProjectStatus.COMPLETED;
+        return getOverallStatus() == ProjectStatus.COMPLETED;
     }
 
     public boolean hasFailedTasks() {
-        return statusMap.values().stream()
-            .anyMatch(status -> status == Task.TaskStatus.FAILED);
+        return countTasks(Task.TaskStatus.FAILED) > 0;
     }
 
     // Dependency checks
-    public boolean canExecuteTask(String taskId) {
-        Task task = getTask(taskId);
-        if (task == null) return false;
+    public synchronized boolean canExecuteTask(String taskId) {
+        int slot = ids.slotOf(taskId);
+        if (slot < 0) return false;
+
+        // 检查所有前置任务是否已完成，不存在的前置任务视为已满足
+        for (int depSlot : dependencySlots(slot)) {
+            if (depSlot != UNRESOLVED && statusAt(depSlot) != Task.TaskStatus.COMPLETED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Slot access
+    /**
+     * 任务ID对应的下标，不存在时返回-1
+     */
+    int slotOf(String taskId) {
+        return ids.slotOf(taskId);
+    }
+
+    String taskIdAt(int slot) {
+        return ids.idAt(slot);
+    }
+
+    Task.TaskStatus statusAt(int slot) {
+        return STATUSES[(byte) BYTES.getVolatile(statusChunks[slot >> CHUNK_SHIFT], slot & CHUNK_MASK)];
+    }
+
+    /**
+     * 任务的前置任务下标，与Task.getDependencies()顺序一致，尚未添加的前置任务为UNRESOLVED
+     * 返回内部数组，调用方不得修改
+     */
+    synchronized int[] dependencySlots(int slot) {
+        TaskMetadata metadata = metadataChunks[slot >> CHUNK_SHIFT];
+        int offset = slot & CHUNK_MASK;
+        int[] deps = metadata.dependencies[offset];
+        String[] unresolvedIds = metadata.unresolvedIds[offset];
+        if (unresolvedDependencies > 0 && unresolvedIds != null) {
+            // 前置任务可能在依赖它的任务之后才添加，查询时补全；
+            // 快照读取依赖时以unresolvedIds为准，原地补全不影响已发布的快照
+            for (int i = 0; i < deps.length; i++) {
+                if (deps[i] == UNRESOLVED && (deps[i] = ids.slotOf(unresolvedIds[i])) != UNRESOLVED) {
+                    unresolvedDependencies--;
+                }
+            }
+        }
+        return deps;
+    }
+
+    // Delta persistence
+    /**
+     * 取出上次取出以来被修改过的任务，用于增量保存；没有修改时返回null
+     * 先清除未持久化标记再生成快照，清除之后发生的修改留到下一次取出
+     */
+    public synchronized ProjectStateDelta drainDelta() {
+        long[] unflushed = drainUnflushed();
+        int changed = 0;
+        for (long bits : unflushed) {
+            changed += Long.bitCount(bits);
+        }
+        if (changed == 0) {
+            return null;
+        }
+
+        ProjectStateSnapshot current = snapshot();
+        int[] slots = new int[changed];
+        List<Task> tasks = new ArrayList<>(changed);
+        int next = 0;
+        for (int chunk = 0; chunk < unflushed.length; chunk++) {
+            for (long bits = unflushed[chunk]; bits != 0; bits &= bits - 1) {
+                int slot = (chunk << CHUNK_SHIFT) + Long.numberOfTrailingZeros(bits);
+                slots[next++] = slot;
+                tasks.add(current.taskAt(slot));
+            }
+        }
+        int[] counts = new int[STATUSES.length];
+        for (Task.TaskStatus status : STATUSES) {
+            counts[status.ordinal()] = current.countTasks(status);
+        }
+        return new ProjectStateDelta(projectId, current.getVersion(), slots, tasks, current.getTaskCount(),
+            counts, current.getOverallStatus(), current.getLastUpdated());
+    }
+
+    /**
+     * 取出并清除所有未持久化标记，完整保存时在生成快照之前调用
+     * 清除之后发生的修改会重新标记，不会因为完整保存而从下一次增量中丢失
+     * @return 被清除的标记，按数据块排列；保存失败时交给restoreUnflushed()恢复
+     */
+    long[] drainUnflushed() {
+        long[][] meta = chunkMeta;
+        long[] unflushed = new long[meta.length];
+        for (int chunk = 0; chunk < meta.length; chunk++) {
+            unflushed[chunk] = (long) LONGS.getAndSet(meta[chunk], META_UNFLUSHED, 0L);
+        }
+        return unflushed;
+    }
+
+    /**
+     * 完整保存失败时恢复drainUnflushed()清除的标记
+     */
+    void restoreUnflushed(long[] unflushed) {
+        long[][] meta = chunkMeta;
+        for (int chunk = 0; chunk < unflushed.length; chunk++) {
+            if (unflushed[chunk] != 0) {
+                LONGS.getAndBitwiseOr(meta[chunk], META_UNFLUSHED, unflushed[chunk]);
+            }
+        }
+    }
+
+    /**
+     * 状态刚从存储加载、尚未被其他线程使用时清除所有未持久化标记
+     * 保存时不能使用此方法，应使用drainUnflushed()，否则会清除快照之后发生的修改
+     */
+    void markFlushed() {
+        for (long[] meta : chunkMeta) {
+            LONGS.setVolatile(meta, META_UNFLUSHED, 0L);
+        }
+    }
 
-        // 检查所有前置任务是否已完成
-        return task.getDependencies().stream()
-            .allMatch(depId -> {
-                Task depTask = getTask(depId);
-                return depTask == null || isTaskCompleted(depId);
-            });
+    /**
+     * 增量保存失败时重新标记其中的任务，下一次取出时一并保存
+     */
+    void restoreDelta(ProjectStateDelta delta) {
+        long[][] meta = chunkMeta;
+        for (int slot : delta.getSlots()) {
+            LONGS.getAndBitwiseOr(meta[slot >> CHUNK_SHIFT], META_UNFLUSHED, 1L << (slot & CHUNK_MASK));
+        }
     }
 
     // Persistence simulation
     public void saveToDatabase() {
         // TODO: 实现数据库持久化逻辑
-        lastUpdated = LocalDateTime.now();
-        System.out.println("ProjectState saved to database at " + lastUpdated);
+        lastUpdatedNanos = now();
+        System.out.println("ProjectState saved to database at " + getLastUpdated());
     }
 
     public void loadFromDatabase() {
@@ -116,24 +494,282 @@ public class ProjectState {
         System.out.println("ProjectState loaded from database");
     }
 
-    private void updateOverallStatus() {
-        if (taskMap.isEmpty()) {
-            overallStatus = ProjectStatus.PENDING;
-            return;
+    /**
+     * 为新任务分配下标，必要时追加数据块，调用方需持有this锁
+     * 先扩容再发布任务ID，无锁读取方查到下标时对应的数据块一定已经存在；新任务的初始状态为PENDING
+     */
+    private int allocate(String taskId) {
+        int slot = ids.size();
+        int chunk = slot >> CHUNK_SHIFT;
+        if (chunk == statusChunks.length) {
+            byte[][] statuses = Arrays.copyOf(statusChunks, chunk + 1);
+            int[][] retries = Arrays.copyOf(retryChunks, chunk + 1);
+            long[][] updated = Arrays.copyOf(updatedChunks, chunk + 1);
+            long[][] meta = Arrays.copyOf(chunkMeta, chunk + 1);
+            statuses[chunk] = new byte[CHUNK_SIZE];
+            retries[chunk] = new int[CHUNK_SIZE];
+            updated[chunk] = new long[CHUNK_SIZE];
+            meta[chunk] = new long[2];
+            metadataChunks = Arrays.copyOf(metadataChunks, chunk + 1);
+            metadataChunks[chunk] = new TaskMetadata();
+            statusChunks = statuses;
+            retryChunks = retries;
+            updatedChunks = updated;
+            chunkMeta = meta;
         }
+        statusCounts.incrementAndGet(Task.TaskStatus.PENDING.ordinal());
+        ids.add(taskId);
+        return slot;
+    }
 
-        boolean allCompleted = taskMap.values().stream()
-            .allMatch(task -> task.getStatus() == Task.TaskStatus.COMPLETED);
+    /**
+     * 写入任务的元数据、状态、重试次数和依赖关系，调用方需持有this锁
+     * 元数据块已发布给快照时先复制再修改，快照中的数据不变
+     */
+    private void write(int slot, Task task) {
+        int chunk = slot >> CHUNK_SHIFT;
+        int offset = slot & CHUNK_MASK;
+        TaskMetadata metadata = metadataChunks[chunk];
+        if (chunk < frozenMetadataChunks.length && metadata == frozenMetadataChunks[chunk]) {
+            metadata = metadata.copy();
+            metadataChunks[chunk] = metadata;
+        }
+        resolveDependencies(metadata, offset, task.getDependencies());
+        metadata.roles[offset] = roleOf(task.getRole());
+        metadata.descriptions[offset] = task.getDescription();
+        metadata.createdAt[offset] = task.getCreatedAt() != null ? epochNanos(task.getCreatedAt()) : 0;
+        metadata.timeouts[offset] = task.getTimeoutMillis();
 
-        boolean anyFailed = taskMap.values().stream()
-            .anyMatch(task -> task.getStatus() == Task.TaskStatus.FAILED);
+        activeWriters.incrementAndGet();
+        try {
+            LONGS.getAndBitwiseOr(chunkMeta[chunk], META_UNFLUSHED, 1L << offset);
+            setStatus(slot, ANY_STATUS, task.getStatus());
+            INTS.setVolatile(retryChunks[chunk], offset, task.getRetryCount());
+            LONGS.setVolatile(updatedChunks[chunk], offset, task.getUpdatedAt() != null ? epochNanos(task.getUpdatedAt()) : 0L);
+            markModified(chunk);
+        } finally {
+            activeWriters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 将依赖的任务ID转换为下标，调用方需持有this锁
+     * 只有尚未添加的前置任务保留其任务ID，其余依赖只保存下标
+     */
+    private void resolveDependencies(TaskMetadata metadata, int offset, List<String> depIds) {
+        int[] previous = metadata.dependencies[offset];
+        if (previous != null) {
+            for (int depSlot : previous) {
+                if (depSlot == UNRESOLVED) {
+                    unresolvedDependencies--;
+                }
+            }
+        }
+        int[] deps = depIds.isEmpty() ? NO_DEPENDENCIES : new int[depIds.size()];
+        String[] unresolvedIds = null;
+        for (int i = 0; i < deps.length; i++) {
+            if ((deps[i] = ids.slotOf(depIds.get(i))) == UNRESOLVED) {
+                if (unresolvedIds == null) {
+                    unresolvedIds = new String[deps.length];
+                }
+                unresolvedIds[i] = depIds.get(i);
+                unresolvedDependencies++;
+            }
+        }
+        metadata.dependencies[offset] = deps;
+        metadata.unresolvedIds[offset] = unresolvedIds;
+    }
 
-        if (allCompleted) {
-            overallStatus = ProjectStatus.COMPLETED;
-        } else if (anyFailed) {
-            overallStatus = ProjectStatus.FAILED;
+    /**
+     * 角色名对应的编号，新角色追加到角色表末尾，调用方需持有this锁
+     */
+    private int roleOf(String role) {
+        if (role == null) {
+            return -1;
+        }
+        Integer index = roleIndex.get(role);
+        if (index == null) {
+            index = roleNames.length;
+            // 角色表只追加并整体替换，已发布的快照继续使用原来的数组
+            roleNames = Arrays.copyOf(roleNames, index + 1);
+            roleNames[index] = role;
+            roleIndex.put(role, index);
+        }
+        return index;
+    }
+
+    private boolean transition(String taskId, int allowedFrom, Task.TaskStatus status, int retryIncrement) {
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 && transition(slot, allowedFrom, status, retryIncrement);
+    }
+
+    /**
+     * 原地转换任务状态，不持有this锁
+     * @param allowedFrom 允许的当前状态，按状态序号的位掩码表示
+     * @param status 目标状态，为null时只修改重试次数
+     * @return 当前状态不允许转换（包括已被其他调用方抢先转换）时返回false
+     */
+    private boolean transition(int slot, int allowedFrom, Task.TaskStatus status, int retryIncrement) {
+        int chunk = slot >> CHUNK_SHIFT;
+        int offset = slot & CHUNK_MASK;
+        awaitSnapshot();
+        activeWriters.incrementAndGet();
+        try {
+            if (status != null && !setStatus(slot, allowedFrom, status)) {
+                return false;
+            }
+            long timestamp = now();
+            if (retryIncrement != 0) {
+                INTS.getAndAdd(retryChunks[chunk], offset, retryIncrement);
+            }
+            LONGS.setVolatile(updatedChunks[chunk], offset, timestamp);
+            LONGS.getAndBitwiseOr(chunkMeta[chunk], META_UNFLUSHED, 1L << offset);
+            lastUpdatedNanos = timestamp;
+            markModified(chunk);
+            return true;
+        } finally {
+            activeWriters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 快照要求独占时等待其完成
+     * 快照持有this锁直到完成，获得锁即说明快照已经结束，等待期间线程阻塞而不是自旋
+     */
+    private void awaitSnapshot() {
+        while (snapshotPending) {
+            synchronized (this) {
+                // 只用于等待快照释放this锁
+            }
+        }
+    }
+
+    /**
+     * 通过CAS设置任务状态并维护各状态计数
+     * @return 当前状态不在allowedFrom中时返回false
+     */
+    private boolean setStatus(int slot, int allowedFrom, Task.TaskStatus status) {
+        byte[] statuses = statusChunks[slot >> CHUNK_SHIFT];
+        int offset = slot & CHUNK_MASK;
+        byte current;
+        do {
+            current = (byte) BYTES.getVolatile(statuses, offset);
+            if ((allowedFrom & (1 << current)) == 0) {
+                return false;
+            }
+        } while (!BYTES.compareAndSet(statuses, offset, current, (byte) status.ordinal()));
+        statusCounts.decrementAndGet(current);
+        statusCounts.incrementAndGet(status.ordinal());
+        return true;
+    }
+
+    /**
+     * 递增版本号并记录数据块在该版本被修改
+     */
+    private void markModified(int chunk) {
+        long stamp = version.incrementAndGet();
+        long[] meta = chunkMeta[chunk];
+        long previous;
+        do {
+            previous = (long) LONGS.getVolatile(meta, META_MODIFIED);
+        } while (previous < stamp && !LONGS.compareAndSet(meta, META_MODIFIED, previous, stamp));
+    }
+
+    private static ProjectStatus overallStatus(int total, int completed, int failed) {
+        if (total == 0) {
+            return ProjectStatus.PENDING;
+        }
+        if (completed == total) {
+            return ProjectStatus.COMPLETED;
+        } else if (failed > 0) {
+            return ProjectStatus.FAILED;
         } else {
-            overallStatus = ProjectStatus.RUNNING;
+            return ProjectStatus.RUNNING;
+        }
+    }
+
+    private static int mask(Task.TaskStatus... statuses) {
+        int mask = 0;
+        for (Task.TaskStatus status : statuses) {
+            mask |= 1 << status.ordinal();
+        }
+        return mask;
+    }
+
+    private static long now() {
+        return System.nanoTime() + EPOCH_NANOS_OFFSET;
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static long epochNanos(LocalDateTime time) {
+        return epochNanos(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneId.systemDefault());
+    }
+
+    /**
+     * 一个数据块内任务的不可变信息
+     * 只在持有ProjectState锁时修改；发布给快照后不再修改，ProjectState写入前先复制
+     */
+    static final class TaskMetadata {
+        private final int[] roles;              // 角色编号，-1表示没有角色
+        private final String[] descriptions;
+        private final long[] createdAt;         // 创建时间的纪元纳秒，0表示未设置
+        private final long[] timeouts;          // 执行超时(毫秒)
+        private final int[][] dependencies;     // 前置任务下标，与Task.getDependencies()顺序一致
+        private final String[][] unresolvedIds; // 写入时尚未添加的前置任务ID，其余位置为null；没有时为null
+
+        TaskMetadata() {
+            this(new int[CHUNK_SIZE], new String[CHUNK_SIZE], new long[CHUNK_SIZE], new long[CHUNK_SIZE],
+                new int[CHUNK_SIZE][], new String[CHUNK_SIZE][]);
+        }
+
+        private TaskMetadata(int[] roles, String[] descriptions, long[] createdAt, long[] timeouts,
+                             int[][] dependencies, String[][] unresolvedIds) {
+            this.roles = roles;
+            this.descriptions = descriptions;
+            this.createdAt = createdAt;
+            this.timeouts = timeouts;
+            this.dependencies = dependencies;
+            this.unresolvedIds = unresolvedIds;
+        }
+
+        TaskMetadata copy() {
+            return new TaskMetadata(roles.clone(), descriptions.clone(), createdAt.clone(), timeouts.clone(),
+                dependencies.clone(), unresolvedIds.clone());
+        }
+
+        /**
+         * 按元数据和给定的可变字段生成Task
+         * @param ids 解析依赖下标用的ID表，需包含写入时已存在的所有任务
+         */
+        Task toTask(int offset, String taskId, TaskIdTable ids, String[] roleNames,
+                    Task.TaskStatus status, int retryCount, long updatedNanos) {
+            int role = roles[offset];
+            long created = createdAt[offset];
+            return new Task(taskId, role >= 0 ? roleNames[role] : null, dependencyIds(offset, ids), status, retryCount,
+                created != 0 ? toLocalDateTime(created) : null,
+                updatedNanos != 0 ? toLocalDateTime(updatedNanos) : null,
+                descriptions[offset], timeouts[offset]);
+        }
+
+        private List<String> dependencyIds(int offset, TaskIdTable ids) {
+            int[] deps = dependencies[offset];
+            if (deps.length == 0) {
+                return List.of();
+            }
+            String[] pending = unresolvedIds[offset];
+            String[] depIds = new String[deps.length];
+            for (int i = 0; i < deps.length; i++) {
+                // 写入时未解析的依赖以保存的ID为准，其下标可能在之后被原地补全
+                depIds[i] = pending != null && pending[i] != null ? pending[i] : ids.idAt(deps[i]);
+            }
+            return List.of(depIds);
         }
     }
 
@@ -143,4 +779,4 @@ public class ProjectState {
         COMPLETED, // 已完成
         FAILED     // 执行失败
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.aiteam.orchestrator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 项目状态的增量
+ * 包含上次取出增量以来被修改过的任务，以及取出时项目的整体信息，仓库只需写入这些任务
+ */
+public class ProjectStateDelta {
+
+    private final String projectId;
+    private final long version;                     // 增量对应的状态版本
+    private final int[] slots;                      // 被修改任务的下标，保存失败时用于重新标记
+    private final List<Task> changedTasks;          // 被修改的任务，与slots一一对应
+    private final int taskCount;
+    private final int[] statusCounts;               // 各状态的任务数，按状态序号
+    private final ProjectState.ProjectStatus overallStatus;
+    private final LocalDateTime lastUpdated;
+
+    ProjectStateDelta(String projectId, long version, int[] slots, List<Task> changedTasks, int taskCount,
+                      int[] statusCounts, ProjectState.ProjectStatus overallStatus, LocalDateTime lastUpdated) {
+        this.projectId = projectId;
+        this.version = version;
+        this.slots = slots;
+        this.changedTasks = changedTasks;
+        this.taskCount = taskCount;
+        this.statusCounts = statusCounts;
+        this.overallStatus = overallStatus;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public String getProjectId() { return projectId; }
+    public long getVersion() { return version; }
+    public List<Task> getChangedTasks() { return changedTasks; }
+    public int getTaskCount() { return taskCount; }
+    public int countTasks(Task.TaskStatus status) { return statusCounts[status.ordinal()]; }
+    public ProjectState.ProjectStatus getOverallStatus() { return overallStatus; }
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+
+    /**
+     * 被修改任务的下标，与getChangedTasks()一一对应
+     */
+    int[] getSlots() {
+        return slots;
+    }
+}
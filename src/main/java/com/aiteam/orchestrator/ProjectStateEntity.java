@@ -0,0 +1,62 @@
+package com.aiteam.orchestrator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 项目状态表的一行，保存项目的整体信息，任务保存在task_state表
+ */
+@Entity
+@Table(name = "project_state")
+class ProjectStateEntity {
+
+    @Id
+    @Column(name = "project_id", length = 128)
+    private String projectId;
+
+    @Column(name = "task_count", nullable = false)
+    private int taskCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "overall_status", length = 16, nullable = false)
+    private ProjectState.ProjectStatus overallStatus;
+
+    @Column(name = "state_version", nullable = false)
+    private long version;
+
+    @Column(name = "last_updated", nullable = false)
+    private LocalDateTime lastUpdated;
+
+    // 只在加载时通过join fetch一次读取，保存任务时不经过这个集合
+    @OneToMany(mappedBy = "project", fetch = FetchType.LAZY)
+    @OrderBy("slot")
+    private List<TaskEntity> tasks = new ArrayList<>();
+
+    protected ProjectStateEntity() {
+    }
+
+    ProjectStateEntity(String projectId) {
+        this.projectId = projectId;
+    }
+
+    void update(int taskCount, ProjectState.ProjectStatus overallStatus, long version, LocalDateTime lastUpdated) {
+        this.taskCount = taskCount;
+        this.overallStatus = overallStatus;
+        this.version = version;
+        this.lastUpdated = lastUpdated;
+    }
+
+    String getProjectId() { return projectId; }
+    List<TaskEntity> getTasks() { return tasks; }
+}
@@ -2,6 +2,10 @@ package com.aiteam.orchestrator;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 项目状态仓库接口，负责状态的持久化
  */
@@ -13,11 +17,47 @@ public interface ProjectStateRepository {
      */
     void save(ProjectState state);
 
+    /**
+     * 增量保存项目状态，只写入增量中被修改的任务和项目整体信息
+     * 默认实现保存完整状态，支持按任务写入的实现应覆盖此方法
+     */
+    default void saveDelta(ProjectState state, ProjectStateDelta delta) {
+        save(state);
+    }
+
     /**
      * 加载项目状态
      */
     ProjectState load(String projectId);
 
+    /**
+     * 加载项目状态的只读快照，只读取状态的调用方应使用此方法
+     * 默认实现加载完整状态后生成快照，缓存等可直接提供快照的实现应覆盖此方法
+     */
+    default ProjectStateSnapshot loadSnapshot(String projectId) {
+        ProjectState state = load(projectId);
+        return state != null ? state.snapshot() : null;
+    }
+
+    /**
+     * 只加载指定的任务，不存在的任务不出现在结果中
+     * 默认实现加载完整状态后筛选，支持按任务读取的实现应覆盖此方法
+     */
+    default Map<String, Task> loadTasks(String projectId, Collection<String> taskIds) {
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        ProjectState state = load(projectId);
+        if (state != null) {
+            ProjectStateSnapshot snapshot = state.snapshot();
+            for (String taskId : taskIds) {
+                Task task = snapshot.getTask(taskId);
+                if (task != null) {
+                    tasks.put(taskId, task);
+                }
+            }
+        }
+        return tasks;
+    }
+
     /**
      * 删除项目状态
      */
@@ -27,86 +67,17 @@ public interface ProjectStateRepository {
      * 检查项目状态是否存在
      */
     boolean exists(String projectId);
-}
-
-// Redis实现示例（需要Spring Data Redis依赖）
-class RedisProjectStateRepository implements ProjectStateRepository {
-
-    // private final StringRedisTemplate redisTemplate;
-    // private final ObjectMapper objectMapper;
-
-    public RedisProjectStateRepository() {
-        // this.redisTemplate = redisTemplate;
-        // this.objectMapper = objectMapper;
-    }
-
-    @Override
-    public void save(ProjectState state) {
-        // TODO: 实现Redis存储逻辑
-        // String key = "project:state:" + state.getProjectId();
-        // redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(state));
-    }
-
-    @Override
-    public ProjectState load(String projectId) {
-        // TODO: 实现Redis加载逻辑
-        // String key = "project:state:" + projectId;
-        // String value = redisTemplate.opsForValue().get(key);
-        // if (value != null) {
-        //     return objectMapper.readValue(value, ProjectState.class);
-        // }
-        return null;
-    }
-
-    @Override
-    public void delete(String projectId) {
-        // TODO: 实现Redis删除逻辑
-        // String key = "project:state:" + projectId;
-        // redisTemplate.delete(key);
-    }
 
-    @Override
-    public boolean exists(String projectId) {
-        // TODO: 实现Redis存在检查逻辑
-        // String key = "project:state:" + projectId;
-        // return redisTemplate.hasKey(key);
-        return false;
+    /**
+     * 状态存储访问失败
+     */
+    class StateStoreException extends RuntimeException {
+        public StateStoreException(String message, Throwable cause) {
+            super(message, cause);
+        }
+
+        public StateStoreException(String message) {
+            super(message);
+        }
     }
 }
-
-// 数据库实现示例（需要JPA依赖）
-class DatabaseProjectStateRepository implements ProjectStateRepository {
-
-    // private final ProjectStateRepository jpaRepository;
-
-    public DatabaseProjectStateRepository() {
-        // this.jpaRepository = jpaRepository;
-    }
-
-    @Override
-    public void save(ProjectState state) {
-        // TODO: 实现数据库存储逻辑
-        // jpaRepository.save(new ProjectStateEntity(state));
-    }
-
-    @Override
-    public ProjectState load(String projectId) {
-        // TODO: 实现数据库加载逻辑
-        // ProjectStateEntity entity = jpaRepository.findById(projectId).orElse(null);
-        // return entity != null ? entity.toProjectState() : null;
-        return null;
-    }
-
-    @Override
-    public void delete(String projectId) {
-        // TODO: 实现数据库删除逻辑
-        // jpaRepository.deleteById(projectId);
-    }
-
-    @Override
-    public boolean exists(String projectId) {
-        // TODO: 实现数据库存在检查逻辑
-        // return jpaRepository.existsById(projectId);
-        return false;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.aiteam.orchestrator;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * 项目状态的只读快照
+ * 表示某个版本的项目状态，创建后不再变化，可被任意线程并发读取；
+ * 与上一个快照共享未变化的数据块，Map形式的访问方法返回视图而不是副本；
+ * 快照不保存Task对象，getTask()和任务视图每次读取时按数据块生成Task
+ */
+public class ProjectStateSnapshot {
+
+    private final String projectId;
+    private final long version;
+    private final TaskIdTable ids;             // 任务ID <-> 任务下标
+    private final ProjectState.TaskMetadata[] metadataChunks;
+    private final String[] roleNames;          // 角色编号 -> 角色名
+    private final byte[][] statusChunks;
+    private final int[][] retryChunks;
+    private final long[][] updatedChunks;      // 最近一次更新的纪元纳秒
+    private final int[] statusCounts;
+    private final ProjectState.ProjectStatus overallStatus;
+    private final LocalDateTime lastUpdated;
+
+    ProjectStateSnapshot(String projectId, long version, TaskIdTable ids,
+                         ProjectState.TaskMetadata[] metadataChunks, String[] roleNames,
+                         byte[][] statusChunks, int[][] retryChunks, long[][] updatedChunks,
+                         int[] statusCounts, ProjectState.ProjectStatus overallStatus, LocalDateTime lastUpdated) {
+        this.projectId = projectId;
+        this.version = version;
+        this.ids = ids;
+        this.metadataChunks = metadataChunks;
+        this.roleNames = roleNames;
+        this.statusChunks = statusChunks;
+        this.retryChunks = retryChunks;
+        this.updatedChunks = updatedChunks;
+        this.statusCounts = statusCounts;
+        this.overallStatus = overallStatus;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public String getProjectId() { return projectId; }
+    public long getVersion() { return version; }
+    public ProjectState.ProjectStatus getOverallStatus() { return overallStatus; }
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+
+    public int getTaskCount() {
+        return ids.size();
+    }
+
+    public int countTasks(Task.TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    public boolean hasTask(String taskId) {
+        return ids.slotOf(taskId) >= 0;
+    }
+
+    public Task getTask(String taskId) {
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 ? taskAt(slot) : null;
+    }
+
+    public Task.TaskStatus getTaskStatus(String taskId) {
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 ? status(slot) : Task.TaskStatus.PENDING;
+    }
+
+    public int getRetryCount(String taskId) {
+        int slot = ids.slotOf(taskId);
+        return slot >= 0 ? retryCount(slot) : 0;
+    }
+
+    /**
+     * 按添加顺序排列的任务列表视图
+     */
+    public List<Task> getTasks() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int slot) {
+                return taskAt(slot);
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+        };
+    }
+
+    public Map<String, Task> getTaskMap() {
+        return new SlotMapView<>(this::taskAt);
+    }
+
+    public Map<String, Task.TaskStatus> getStatusMap() {
+        return new SlotMapView<>(this::status);
+    }
+
+    public Map<String, Integer> getRetryCountMap() {
+        return new SlotMapView<>(this::retryCount);
+    }
+
+    Task taskAt(int slot) {
+        int chunk = slot >> ProjectState.CHUNK_SHIFT;
+        int offset = slot & ProjectState.CHUNK_MASK;
+        return metadataChunks[chunk].toTask(offset, ids.idAt(slot), ids, roleNames, status(slot),
+            retryChunks[chunk][offset], updatedChunks[chunk][offset]);
+    }
+
+    private Task.TaskStatus status(int slot) {
+        return ProjectState.STATUSES[statusChunks[slot >> ProjectState.CHUNK_SHIFT][slot & ProjectState.CHUNK_MASK]];
+    }
+
+    private int retryCount(int slot) {
+        return retryChunks[slot >> ProjectState.CHUNK_SHIFT][slot & ProjectState.CHUNK_MASK];
+    }
+
+    /**
+     * 以任务ID为键的只读Map视图，按下标读取快照中的数据
+     */
+    private class SlotMapView<V> extends AbstractMap<String, V> {
+
+        private final IntFunction<V> valueAt;
+
+        SlotMapView(IntFunction<V> valueAt) {
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        public V get(Object key) {
+            int slot = ids.slotOf(key);
+            return slot >= 0 ? valueAt.apply(slot) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ids.slotOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<>() {
+                        private int slot;
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < ids.size();
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = slot++;
+                            return new SimpleImmutableEntry<>(ids.idAt(current), valueAt.apply(current));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ids.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.aiteam.orchestrator;
+
+/**
+ * 项目任务在公平调度队列中的等待时间统计（毫秒）
+ */
+public class QueueWaitStats {
+
+    public static final QueueWaitStats EMPTY = new QueueWaitStats(0, 0, 0, 0);
+
+    private final long sampleCount;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public QueueWaitStats(long sampleCount, double p50Millis, double p99Millis, double maxMillis) {
+        this.sampleCount = sampleCount;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    // Getters
+    public long getSampleCount() { return sampleCount; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+}
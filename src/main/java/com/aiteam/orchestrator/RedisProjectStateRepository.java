@@ -0,0 +1,287 @@
+package com.aiteam.orchestrator;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Redis的项目状态仓库
+ * 每个项目保存为三个键：
+ *   project:state:{projectId}:base   最近一次完整保存的StateCodec.encodeState编码（Base64），所有任务共用一个字符串表
+ *   project:state:{projectId}:tasks  Hash，完整保存之后被修改的任务：任务ID -> "下标:Base64(StateCodec.encodeTask)"
+ *   project:state:{projectId}:meta   Hash，任务总数、各状态任务数、整体状态、版本号和更新时间
+ * 完整保存在MULTI中替换三个键；增量保存只写入被修改的任务和计数，多条命令通过流水线一次发送并在MULTI中原子执行；
+ * 加载时先解码完整编码，再按下标覆盖tasks中的任务；
+ * 按任务读取先用HMGET读取被修改过的任务，其余任务从完整编码中查找
+ * 只依赖StringRedisTemplate，可以连接本地Redis或嵌入式Redis使用
+ */
+class RedisProjectStateRepository implements ProjectStateRepository {
+
+    private static final String KEY_PREFIX = "project:state:";
+    private static final int HSET_BATCH_SIZE = 1000;   // 单条HSET最多写入的字段数，避免超大命令阻塞Redis
+
+    private static final String FIELD_TASK_COUNT = "taskCount";
+    private static final String FIELD_OVERALL_STATUS = "overallStatus";
+    private static final String FIELD_VERSION = "version";
+    private static final String FIELD_LAST_UPDATED = "lastUpdated";
+    private static final String FIELD_COUNT_PREFIX = "count:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisProjectStateRepository(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void save(ProjectState state) {
+        // 先清除未持久化标记再生成快照，快照之后的修改留到下一次增量保存
+        long[] flushed = state.drainUnflushed();
+        try {
+            save(state.snapshot());
+        } catch (RuntimeException e) {
+            state.restoreUnflushed(flushed);
+            throw e;
+        }
+    }
+
+    private void save(ProjectStateSnapshot snapshot) {
+        String projectId = snapshot.getProjectId();
+        String base = Base64.getEncoder().encodeToString(StateCodec.encodeState(snapshot));
+        Map<String, String> meta = meta(snapshot.getTaskCount(), snapshot::countTasks, snapshot.getOverallStatus(),
+            snapshot.getVersion(), snapshot.getLastUpdated());
+
+        // 删除旧数据和写入新数据在同一个事务中，读取方不会看到只写了一半的项目
+        execute(projectId, operations -> {
+            operations.multi();
+            operations.delete(List.of(baseKey(projectId), tasksKey(projectId), metaKey(projectId)));
+            operations.opsForValue().set(baseKey(projectId), base);
+            operations.opsForHash().putAll(metaKey(projectId), meta);
+            operations.exec();
+        });
+    }
+
+    @Override
+    public void saveDelta(ProjectState state, ProjectStateDelta delta) {
+        String projectId = delta.getProjectId();
+        Map<String, String> tasks = new LinkedHashMap<>();
+        int[] slots = delta.getSlots();
+        List<Task> changed = delta.getChangedTasks();
+        for (int i = 0; i < slots.length; i++) {
+            tasks.put(changed.get(i).getId(), encode(slots[i], changed.get(i)));
+        }
+        Map<String, String> meta = meta(delta.getTaskCount(), delta::countTasks, delta.getOverallStatus(),
+            delta.getVersion(), delta.getLastUpdated());
+
+        execute(projectId, operations -> {
+            operations.multi();
+            putAll(operations, tasksKey(projectId), tasks);
+            operations.opsForHash().putAll(metaKey(projectId), meta);
+            operations.exec();
+        });
+    }
+
+    @Override
+    public ProjectState load(String projectId) {
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(metaKey(projectId)))) {
+                return null;
+            }
+            String base = redisTemplate.opsForValue().get(baseKey(projectId));
+            List<StoredTask> stored = new ArrayList<>();
+            for (String value : hash.entries(tasksKey(projectId)).values()) {
+                stored.add(decode(value));
+            }
+            stored.sort(Comparator.comparingInt(StoredTask::slot));
+
+            ProjectState state = base != null ? decodeState(base) : new ProjectState(projectId);
+            stored.forEach(task -> state.addTask(task.task()));
+            state.markFlushed();
+            return state;
+        } catch (DataAccessException e) {
+            throw new StateStoreException("Failed to load project state: " + projectId, e);
+        }
+    }
+
+    @Override
+    public Map<String, Task> loadTasks(String projectId, Collection<String> taskIds) {
+        List<String> fields = new ArrayList<>(taskIds);
+        if (fields.isEmpty()) {
+            return Map.of();
+        }
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        List<String> values;
+        try {
+            values = hash.multiGet(tasksKey(projectId), fields);
+        } catch (DataAccessException e) {
+            throw new StateStoreException("Failed to load tasks of project: " + projectId, e);
+        }
+
+        Map<String, Task> found = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                found.put(fields.get(i), decode(value).task());
+            }
+        }
+
+        // 完整保存之后没有被修改的任务在完整编码中
+        if (found.size() < fields.size()) {
+            String base;
+            try {
+                base = redisTemplate.opsForValue().get(baseKey(projectId));
+            } catch (DataAccessException e) {
+                throw new StateStoreException("Failed to load tasks of project: " + projectId, e);
+            }
+            if (base != null) {
+                ProjectState state = decodeState(base);
+                for (String taskId : fields) {
+                    if (!found.containsKey(taskId)) {
+                        Task task = state.getTask(taskId);
+                        if (task != null) {
+                            found.put(taskId, task);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 按请求的顺序返回
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : fields) {
+            Task task = found.get(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String projectId) {
+        try {
+            redisTemplate.delete(List.of(baseKey(projectId), tasksKey(projectId), metaKey(projectId)));
+        } catch (DataAccessException e) {
+            throw new StateStoreException("Failed to delete project state: " + projectId, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String projectId) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(metaKey(projectId)));
+        } catch (DataAccessException e) {
+            throw new StateStoreException("Failed to check project state: " + projectId, e);
+        }
+    }
+
+    /**
+     * 在流水线中执行一组命令，命令在客户端缓冲后一次发送，执行失败时抛出StateStoreException
+     */
+    private void execute(String projectId, RedisCommands commands) {
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    commands.run((RedisOperations<String, String>) operations);
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            throw new StateStoreException("Failed to save project state: " + projectId, e);
+        }
+    }
+
+    /**
+     * 分批写入Hash字段
+     */
+    private static void putAll(RedisOperations<String, String> operations, String key, Map<String, String> fields) {
+        Map<String, String> batch = new HashMap<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            batch.put(field.getKey(), field.getValue());
+            if (batch.size() == HSET_BATCH_SIZE) {
+                operations.opsForHash().putAll(key, batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            operations.opsForHash().putAll(key, batch);
+        }
+    }
+
+    private static Map<String, String> meta(int taskCount, StatusCounter counter, ProjectState.ProjectStatus overallStatus,
+                                            long version, LocalDateTime lastUpdated) {
+        Map<String, String> meta = new HashMap<>();
+        meta.put(FIELD_TASK_COUNT, Integer.toString(taskCount));
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            meta.put(FIELD_COUNT_PREFIX + status.name(), Integer.toString(counter.count(status)));
+        }
+        meta.put(FIELD_OVERALL_STATUS, overallStatus.name());
+        meta.put(FIELD_VERSION, Long.toString(version));
+        meta.put(FIELD_LAST_UPDATED, lastUpdated.toString());
+        return meta;
+    }
+
+    private static String encode(int slot, Task task) {
+        return slot + ":" + Base64.getEncoder().encodeToString(StateCodec.encodeTask(task));
+    }
+
+    private static StoredTask decode(String value) {
+        int separator = value.indexOf(':');
+        try {
+            int slot = Integer.parseInt(value.substring(0, separator));
+            return new StoredTask(slot, StateCodec.decodeTask(Base64.getDecoder().decode(value.substring(separator + 1))));
+        } catch (RuntimeException e) {
+            throw new StateStoreException("Failed to decode task: " + value, e);
+        }
+    }
+
+    private static ProjectState decodeState(String value) {
+        try {
+            return StateCodec.decodeState(Base64.getDecoder().decode(value));
+        } catch (RuntimeException e) {
+            throw new StateStoreException("Failed to decode project state", e);
+        }
+    }
+
+    private static String baseKey(String projectId) {
+        return KEY_PREFIX + projectId + ":base";
+    }
+
+    private static String tasksKey(String projectId) {
+        return KEY_PREFIX + projectId + ":tasks";
+    }
+
+    private static String metaKey(String projectId) {
+        return KEY_PREFIX + projectId + ":meta";
+    }
+
+    @FunctionalInterface
+    private interface RedisCommands {
+        void run(RedisOperations<String, String> operations);
+    }
+
+    @FunctionalInterface
+    private interface StatusCounter {
+        int count(Task.TaskStatus status);
+    }
+
+    /**
+     * Hash中保存的任务，slot为任务在项目中的下标
+     */
+    private record StoredTask(int slot, Task task) {
+    }
+}
@@ -25,6 +25,7 @@ class Agent {
     private String agentType;
     private String description;
     private boolean active;
+    private int maxConcurrency; // 该角色的并发上限，0表示使用默认配置
 
     // 构造函数
     public Agent() {}
@@ -53,6 +54,9 @@ class Agent {
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
     // 获取代理实例
     public RoleBasedAgent getAgentInstance() {
         switch (agentType) {
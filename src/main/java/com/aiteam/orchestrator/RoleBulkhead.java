@@ -0,0 +1,144 @@
+package com.aiteam.orchestrator;
+
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 按角色隔离的并发舱壁
+ * 每个角色（Task.getRole()）有独立的并发上限，超出上限的任务留在调度队列中等待，
+ * 不会占用工作线程；上限可在运行时通过/api/agents配置调整
+ */
+@Component
+public class RoleBulkhead {
+
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+    private final List<Runnable> capacityListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> configuredLimits;
+    private final int defaultLimit;
+
+    public RoleBulkhead(OrchestratorProperties properties, AgentRepository agentRepository) {
+        this.defaultLimit = properties.getDefaultRoleConcurrency();
+        this.configuredLimits = Map.copyOf(properties.getRoleConcurrency());
+        configuredLimits.forEach((role, limit) -> compartment(role).limit = limit);
+
+        // Agent配置中的并发上限优先于配置文件
+        for (Agent agent : agentRepository.findAll()) {
+            if (agent.getMaxConcurrency() > 0) {
+                compartment(agent.getRoleName()).limit = agent.getMaxConcurrency();
+            }
+        }
+    }
+
+    /**
+     * 角色当前是否还有空余额度
+     */
+    public boolean hasCapacity(String role) {
+        Compartment compartment = compartment(role);
+        synchronized (compartment) {
+            return compartment.limit <= 0 || compartment.active < compartment.limit;
+        }
+    }
+
+    /**
+     * 尝试占用角色的一个并发额度，不阻塞
+     */
+    public boolean tryAcquire(String role) {
+        Compartment compartment = compartment(role);
+        synchronized (compartment) {
+            if (compartment.limit > 0 && compartment.active >= compartment.limit) {
+                return false;
+            }
+            compartment.active++;
+            return true;
+        }
+    }
+
+    /**
+     * 归还角色的并发额度
+     */
+    public void release(String role) {
+        Compartment compartment = compartment(role);
+        synchronized (compartment) {
+            compartment.active--;
+        }
+    }
+
+    /**
+     * 调整角色并发上限，0或负数表示不限制
+     * 调高上限后通知调度器，排队中的该角色任务可以立即派发
+     */
+    public void setLimit(String role, int limit) {
+        Compartment compartment = compartment(role);
+        synchronized (compartment) {
+            compartment.limit = limit;
+        }
+        System.out.println("Role concurrency limit updated: " + role + " -> " + (limit > 0 ? limit : "unlimited"));
+        capacityListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * 应用Agent配置的并发上限
+     * maxConcurrency大于0时覆盖配置文件，否则恢复为role-concurrency配置或默认上限
+     */
+    public void applyAgentLimit(String role, int maxConcurrency) {
+        setLimit(role, maxConcurrency > 0 ? maxConcurrency : configuredLimit(role));
+    }
+
+    /**
+     * Agent角色改名或删除后，旧角色恢复为配置文件中的上限
+     * 舱室创建后不再移除：调用方可能仍持有舱室引用，移除后占用和归还会落在不同的实例上
+     */
+    public void clearAgentLimit(String role) {
+        Compartment compartment = compartments.get(role);
+        if (compartment == null) {
+            return;
+        }
+        synchronized (compartment) {
+            compartment.limit = configuredLimit(role);
+        }
+        capacityListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * 注册额度变化监听器
+     */
+    public void addCapacityListener(Runnable listener) {
+        capacityListeners.add(listener);
+    }
+
+    public int getLimit(String role) {
+        return compartment(role).limit;
+    }
+
+    public int getActiveCount(String role) {
+        Compartment compartment = compartment(role);
+        synchronized (compartment) {
+            return compartment.active;
+        }
+    }
+
+    private int configuredLimit(String role) {
+        return configuredLimits.getOrDefault(role, defaultLimit);
+    }
+
+    private Compartment compartment(String role) {
+        return compartments.computeIfAbsent(role, key -> new Compartment(defaultLimit));
+    }
+
+    /**
+     * 单个角色的舱室：并发上限和执行中数量
+     */
+    private static class Compartment {
+        private volatile int limit;
+        private int active;
+
+        Compartment(int limit) {
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.aiteam.orchestrator;
+
+/**
+ * 项目状态近端缓存的命中和淘汰统计
+ */
+public class StateCacheStats {
+
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;       // 超过容量被淘汰的项目数
+    private final long expirations;     // 超过存活时间被淘汰的项目数
+    private final long invalidations;   // 收到其他节点的失效通知后移除的项目数
+    private final long invalidationsSent;   // 发送给其他节点的失效通知数
+
+    public StateCacheStats(int size, int maxSize, long hits, long misses, long evictions, long expirations,
+                           long invalidations, long invalidationsSent) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.invalidationsSent = invalidationsSent;
+    }
+
+    // Getters
+    public int getSize() { return size; }
+    public int getMaxSize() { return maxSize; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public long getInvalidations() { return invalidations; }
+    public long getInvalidationsSent() { return invalidationsSent; }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
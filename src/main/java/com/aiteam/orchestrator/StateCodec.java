@@ -0,0 +1,407 @@
+package com.aiteam.orchestrator;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 项目状态、任务和项目计划的二进制编码
+ * 完整保存使用encodeState，增量保存按任务使用encodeTask
+ * 每条消息以格式版本和消息类型开头；整数使用变长编码(varint，有符号数先做zigzag)，
+ * 消息中所有任务的ID、角色名和依赖的任务ID放在同一个字符串表中，每个字符串只出现一次，任务只保存表中的下标；
+ * 状态保存枚举序号，时间保存为相对基准时间的秒数和纳秒，字段名不出现在编码结果中；消息必须恰好在内容之后结束
+ * 解码按消息中的格式版本选择读取方式，目前只有版本1。格式变化时递增FORMAT_VERSION并为旧版本保留一个读取分支，
+ * 已保存的数据不需要迁移；TaskStatus只能在末尾追加新值
+ */
+public final class StateCodec {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int KIND_TASK = 1;
+    private static final int KIND_STATE = 2;
+    private static final int KIND_PLAN = 3;
+
+    private static final int HAS_ROLE = 1;
+    private static final int HAS_CREATED_AT = 1 << 1;
+    private static final int HAS_UPDATED_AT = 1 << 2;
+
+    private static final Task.TaskStatus[] STATUSES = Task.TaskStatus.values();
+
+    private StateCodec() {
+    }
+
+    public static byte[] encodeTask(Task task) {
+        Writer writer = new Writer(KIND_TASK);
+        writer.writeTasks(List.of(task), false);
+        return writer.toByteArray();
+    }
+
+    public static Task decodeTask(byte[] data) {
+        Reader reader = new Reader(data, KIND_TASK);
+        Task task = switch (reader.version) {
+            case 1 -> reader.readTasksV1(false).get(0);
+            default -> throw unsupported(reader.version);
+        };
+        reader.finish();
+        return task;
+    }
+
+    public static byte[] encodeState(ProjectState state) {
+        return encodeState(state.snapshot());
+    }
+
+    /**
+     * 编码项目快照中的全部任务，解码后按原顺序重新加入新的ProjectState
+     */
+    public static byte[] encodeState(ProjectStateSnapshot snapshot) {
+        Writer writer = new Writer(KIND_STATE);
+        writer.writeString(snapshot.getProjectId());
+        writer.writeTasks(snapshot.getTasks(), true);
+        return writer.toByteArray();
+    }
+
+    public static ProjectState decodeState(byte[] data) {
+        Reader reader = new Reader(data, KIND_STATE);
+        ProjectState state = switch (reader.version) {
+            case 1 -> {
+                ProjectState decoded = new ProjectState(reader.readString());
+                reader.readTasksV1(true).forEach(decoded::addTask);
+                yield decoded;
+            }
+            default -> throw unsupported(reader.version);
+        };
+        reader.finish();
+        return state;
+    }
+
+    public static byte[] encodePlan(ProjectPlan plan) {
+        Writer writer = new Writer(KIND_PLAN);
+        writer.writeString(plan.getProjectId());
+        writer.writeString(plan.getTitle());
+        writer.writeString(plan.getDescription());
+        writer.writeTasks(plan.getTasks(), true);
+        writer.writeTime(plan.getCreatedAt());
+        writer.writeTime(plan.getUpdatedAt());
+        return writer.toByteArray();
+    }
+
+    public static ProjectPlan decodePlan(byte[] data) {
+        Reader reader = new Reader(data, KIND_PLAN);
+        ProjectPlan plan = switch (reader.version) {
+            case 1 -> {
+                String projectId = reader.readString();
+                String title = reader.readString();
+                String description = reader.readString();
+                List<Task> tasks = reader.readTasksV1(true);
+                LocalDateTime createdAt = reader.readTime();
+                LocalDateTime updatedAt = reader.readTime();
+                yield new ProjectPlan(projectId, title, description, tasks, createdAt, updatedAt);
+            }
+            default -> throw unsupported(reader.version);
+        };
+        reader.finish();
+        return plan;
+    }
+
+    private static StateCodecException unsupported(int version) {
+        return new StateCodecException("Unsupported codec version: " + version);
+    }
+
+    /**
+     * 编码数据无法解码：版本不支持、类型不符、数据不完整或有多余的字节
+     */
+    public static class StateCodecException extends RuntimeException {
+        public StateCodecException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Writer {
+
+        private byte[] buffer = new byte[256];
+        private int position;
+        private long baseSecond;   // 时间相对的基准秒数
+
+        Writer(int kind) {
+            writeVarInt(FORMAT_VERSION);
+            writeVarInt(kind);
+        }
+
+        /**
+         * 所有任务共用的字符串表、基准时间和任务列表；counted为false时只有一个任务，不写任务数
+         */
+        void writeTasks(List<Task> tasks, boolean counted) {
+            Map<String, Integer> indexes = new HashMap<>();
+            List<String> table = new ArrayList<>();
+            for (Task task : tasks) {
+                intern(indexes, table, task.getId());
+                if (task.getRole() != null) {
+                    intern(indexes, table, task.getRole());
+                }
+                for (String dependency : task.getDependencies()) {
+                    intern(indexes, table, dependency);
+                }
+            }
+            writeVarInt(table.size());
+            for (String value : table) {
+                writeString(value);
+            }
+
+            baseSecond = tasks.isEmpty() || tasks.get(0).getCreatedAt() == null
+                ? 0 : tasks.get(0).getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(zigzag(baseSecond));
+
+            if (counted) {
+                writeVarInt(tasks.size());
+            }
+            for (Task task : tasks) {
+                int flags = (task.getRole() != null ? HAS_ROLE : 0)
+                    | (task.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                    | (task.getUpdatedAt() != null ? HAS_UPDATED_AT : 0);
+                writeVarInt(flags);
+                writeVarInt(indexes.get(task.getId()));
+                if (task.getRole() != null) {
+                    writeVarInt(indexes.get(task.getRole()));
+                }
+                writeVarInt(task.getStatus().ordinal());
+                writeVarInt(task.getRetryCount());
+                writeVarLong(zigzag(task.getTimeoutMillis()));
+                writeVarInt(task.getDependencies().size());
+                for (String dependency : task.getDependencies()) {
+                    writeVarInt(indexes.get(dependency));
+                }
+                if (task.getCreatedAt() != null) {
+                    writeSeconds(task.getCreatedAt());
+                }
+                if (task.getUpdatedAt() != null) {
+                    writeSeconds(task.getUpdatedAt());
+                }
+                writeString(task.getDescription());
+            }
+        }
+
+        /**
+         * 可为null的时间，使用绝对秒数
+         */
+        void writeTime(LocalDateTime time) {
+            if (time == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(1);
+            writeVarLong(zigzag(time.toEpochSecond(ZoneOffset.UTC)));
+            writeVarInt(time.getNano());
+        }
+
+        /**
+         * 可为null的字符串，长度加1写入，0表示null
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void writeSeconds(LocalDateTime time) {
+            writeVarLong(zigzag(time.toEpochSecond(ZoneOffset.UTC) - baseSecond));
+            writeVarInt(time.getNano());
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private static void intern(Map<String, Integer> indexes, List<String> table, String value) {
+            if (indexes.putIfAbsent(value, table.size()) == null) {
+                table.add(value);
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static class Reader {
+
+        private final byte[] data;
+        private final int version;   // 消息的格式版本，决定读取方式
+        private int position;
+        private long baseSecond;
+
+        Reader(byte[] data, int kind) {
+            this.data = data;
+            this.version = readVarInt();
+            int actualKind = readVarInt();
+            if (actualKind != kind) {
+                throw new StateCodecException("Unexpected message kind: " + actualKind + ", expected: " + kind);
+            }
+        }
+
+        /**
+         * 版本1：字符串表、基准时间和任务列表；counted为false时只有一个任务
+         */
+        List<Task> readTasksV1(boolean counted) {
+            String[] table = new String[readCount()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = readString();
+            }
+            baseSecond = unzigzag(readVarLong());
+
+            int count = counted ? readCount() : 1;
+            List<Task> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int flags = readVarInt();
+                String id = lookup(table, readVarInt());
+                String role = (flags & HAS_ROLE) != 0 ? lookup(table, readVarInt()) : null;
+                int ordinal = readVarInt();
+                if (ordinal < 0 || ordinal >= STATUSES.length) {
+                    throw new StateCodecException("Unknown task status ordinal: " + ordinal);
+                }
+                int retryCount = readVarInt();
+                long timeoutMillis = unzigzag(readVarLong());
+                int dependencyCount = readCount();
+                List<String> dependencies = new ArrayList<>(dependencyCount);
+                for (int d = 0; d < dependencyCount; d++) {
+                    dependencies.add(lookup(table, readVarInt()));
+                }
+                LocalDateTime createdAt = (flags & HAS_CREATED_AT) != 0 ? readSeconds() : null;
+                LocalDateTime updatedAt = (flags & HAS_UPDATED_AT) != 0 ? readSeconds() : null;
+                String description = readString();
+                tasks.add(new Task(id, role, dependencies, STATUSES[ordinal], retryCount, createdAt, updatedAt,
+                    description, timeoutMillis));
+            }
+            return tasks;
+        }
+
+        LocalDateTime readTime() {
+            int present = readVarInt();
+            if (present == 0) {
+                return null;
+            }
+            if (present != 1) {
+                throw new StateCodecException("Invalid time marker " + present + " at offset " + position);
+            }
+            return toTime(unzigzag(readVarLong()), readNano());
+        }
+
+        /**
+         * 消息必须在读取的内容之后结束，多余的字节说明数据被拼接或损坏
+         */
+        void finish() {
+            if (position != data.length) {
+                throw new StateCodecException("Unexpected " + (data.length - position) + " trailing bytes at offset " + position);
+            }
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length < 0 || length > data.length - position) {
+                throw new StateCodecException("Truncated data at offset " + position);
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private LocalDateTime readSeconds() {
+            return toTime(baseSecond + unzigzag(readVarLong()), readNano());
+        }
+
+        private static LocalDateTime toTime(long second, int nano) {
+            try {
+                return LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+            } catch (DateTimeException e) {
+                throw new StateCodecException("Invalid time value: " + second);
+            }
+        }
+
+        private int readNano() {
+            int nano = readVarInt();
+            if (nano < 0 || nano > 999_999_999) {
+                throw new StateCodecException("Invalid nanosecond value: " + nano);
+            }
+            return nano;
+        }
+
+        /**
+         * 元素个数，每个元素至少占一个字节，超过剩余字节数说明数据已损坏
+         */
+        private int readCount() {
+            int count = readVarInt();
+            if (count < 0 || count > data.length - position) {
+                throw new StateCodecException("Invalid element count " + count + " at offset " + position);
+            }
+            return count;
+        }
+
+        private int readVarInt() {
+            long value = readVarLong();
+            if (value > 0xFFFFFFFFL) {
+                throw new StateCodecException("Integer out of range at offset " + position);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new StateCodecException("Truncated data at offset " + position);
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StateCodecException("Malformed varint at offset " + position);
+        }
+
+        private static String lookup(String[] table, int index) {
+            if (index < 0 || index >= table.length) {
+                throw new StateCodecException("String table index out of range: " + index);
+            }
+            return table[index];
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
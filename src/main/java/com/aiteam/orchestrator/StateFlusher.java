@@ -0,0 +1,79 @@
+package com.aiteam.orchestrator;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 项目状态的增量持久化
+ * 状态变化后只登记项目，由后台线程按固定间隔合并提交：每个项目在一个间隔内的多次修改只写一次，
+ * 每次只写入上次保存以来被修改的任务，持久化开销随修改频率增长，而不随项目规模增长
+ */
+class StateFlusher {
+
+    private final ProjectStateRepository repository;
+    private final Set<ProjectState> pending = ConcurrentHashMap.newKeySet();   // 有未保存修改的项目
+    private final ScheduledExecutorService executor;
+
+    StateFlusher(ProjectStateRepository repository, long flushInterval) {
+        this.repository = repository;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "state-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(flushInterval, 1);
+        executor.scheduleWithFixedDelay(this::flushPending, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记有修改的项目，在下一个提交间隔保存
+     */
+    void schedule(ProjectState state) {
+        pending.add(state);
+    }
+
+    /**
+     * 立即保存项目尚未保存的修改
+     */
+    void flush(ProjectState state) {
+        pending.remove(state);
+        // 同一时刻只有一次保存，保证先取出的增量先写入
+        synchronized (this) {
+            ProjectStateDelta delta = state.drainDelta();
+            if (delta == null) {
+                return;
+            }
+            try {
+                repository.saveDelta(state, delta);
+            } catch (RuntimeException e) {
+                state.restoreDelta(delta);
+                pending.add(state);
+                System.out.println("Failed to save project state " + state.getProjectId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 保存所有待保存的项目后停止后台线程
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushPending();
+    }
+
+    private void flushPending() {
+        // 保存失败的项目会重新登记，留到下一个间隔
+        for (ProjectState state : List.copyOf(pending)) {
+            flush(state);
+        }
+    }
+}
@@ -16,9 +16,16 @@ public class Task {
     private LocalDateTime createdAt;         // 创建时间
     private LocalDateTime updatedAt;         // 更新时间
     private String description;              // 任务描述
+    private final long timeoutMillis;          // 执行超时(毫秒)，0表示使用角色或全局配置
 
     public Task(String id, String role, List<String> dependencies, TaskStatus status,
                 int retryCount, LocalDateTime createdAt, LocalDateTime updatedAt, String description) {
+        this(id, role, dependencies, status, retryCount, createdAt, updatedAt, description, 0);
+    }
+
+    public Task(String id, String role, List<String> dependencies, TaskStatus status,
+                int retryCount, LocalDateTime createdAt, LocalDateTime updatedAt, String description,
+                long timeoutMillis) {
         this.id = id;
         this.role = role;
         this.dependencies = dependencies != null ? dependencies : java.util.Collections.emptyList();
@@ -27,6 +34,7 @@ public class Task {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.description = description;
+        this.timeoutMillis = timeoutMillis;
     }
 
     // Getters
@@ -38,6 +46,7 @@ public class Task {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public String getDescription() { return description; }
+    public long getTimeoutMillis() { return timeoutMillis; }
 
     public enum TaskStatus {
         PENDING,      // 等待执行
@@ -63,13 +72,23 @@ public class Task {
         );
     }
 
+    /**
+     * 设置任务执行超时
+     */
+    public Task withTimeout(long timeoutMillis) {
+        return new Task(
+            id, role, dependencies, status, retryCount,
+            createdAt, updatedAt, description, timeoutMillis
+        );
+    }
+
     /**
      * 任务开始执行
      */
     public Task start() {
         return new Task(
             id, role, dependencies, TaskStatus.RUNNING, retryCount,
-            createdAt, LocalDateTime.now(), description
+            createdAt, LocalDateTime.now(), description, timeoutMillis
         );
     }
 
@@ -79,7 +98,7 @@ public class Task {
     public Task complete() {
         return new Task(
             id, role, dependencies, TaskStatus.COMPLETED, retryCount,
-            createdAt, LocalDateTime.now(), description
+            createdAt, LocalDateTime.now(), description, timeoutMillis
         );
     }
 
@@ -89,7 +108,7 @@ public class Task {
     public Task fail() {
         return new Task(
             id, role, dependencies, TaskStatus.FAILED, retryCount,
-            createdAt, LocalDateTime.now(), description
+            createdAt, LocalDateTime.now(), description, timeoutMillis
         );
     }
 
@@ -99,7 +118,7 @@ public class Task {
     public Task retry() {
         return new Task(
             id, role, dependencies, TaskStatus.RETRYING, retryCount + 1,
-            createdAt, LocalDateTime.now(), description
+            createdAt, LocalDateTime.now(), description, timeoutMillis
         );
     }
 }
\ No newline at end of file
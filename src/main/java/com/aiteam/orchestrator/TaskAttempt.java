@@ -0,0 +1,108 @@
+package com.aiteam.orchestrator;
+
+import java.util.concurrent.Future;
+
+/**
+ * 任务的一次执行尝试
+ * 执行结束和被放弃（超时、取消等）以先到者为准，只有先到的一方可以上报结果；
+ * 被放弃时中断正在执行代理调用的线程
+ */
+class TaskAttempt {
+
+    private Thread runner;       // 正在执行代理调用的线程
+    private boolean settled;     // 结果是否已经上报
+    private Future<?> result;    // 异步代理返回的执行结果，放弃时取消
+    private volatile AsyncRoleBasedAgent agent;   // 本次尝试租用的代理实例
+
+    /**
+     * 在执行线程上开始执行
+     * @return 尝试是否仍然有效，在调度器队列中等待期间已被放弃时返回false，调用方不应再调用代理
+     */
+    synchronized boolean begin() {
+        if (settled) {
+            return false;
+        }
+        runner = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * 执行线程结束代理调用，清除可能残留的中断标记，避免影响线程池中的下一个任务
+     */
+    synchronized void end() {
+        runner = null;
+        Thread.interrupted();
+        notifyAll();
+    }
+
+    /**
+     * 关联代理返回的执行结果，尝试已被放弃时立即取消
+     */
+    synchronized void track(Future<?> result) {
+        if (settled) {
+            result.cancel(true);
+        } else {
+            this.result = result;
+        }
+    }
+
+    /**
+     * 尝试成为上报结果的一方
+     * @return 是否是第一个上报者
+     */
+    synchronized boolean settle() {
+        if (settled) {
+            return false;
+        }
+        settled = true;
+        return true;
+    }
+
+    AsyncRoleBasedAgent getAgent() {
+        return agent;
+    }
+
+    void setAgent(AsyncRoleBasedAgent agent) {
+        this.agent = agent;
+    }
+
+    /**
+     * 结果是否已经上报或已被放弃
+     */
+    synchronized boolean isSettled() {
+        return settled;
+    }
+
+    /**
+     * 放弃本次尝试：中断代理调用，取消尚未完成的异步结果
+     * @return 是否由本次调用决定了结果（尝试尚未正常结束）
+     */
+    synchronized boolean abort() {
+        if (!settle()) {
+            return false;
+        }
+        if (runner != null) {
+            runner.interrupt();
+        }
+        if (result != null) {
+            result.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * 等待被放弃的尝试退出代理调用；尚未开始的尝试之后也不会再调用代理，直接返回
+     * @param deadlineNanos System.nanoTime()时间基准下的截止时间
+     * @return 截止前是否已经没有线程在执行本次尝试
+     */
+    synchronized boolean awaitEnd(long deadlineNanos) throws InterruptedException {
+        while (runner != null) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package com.aiteam.orchestrator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 任务状态表的一行，主键为(项目ID, 任务ID)
+ * 主键由应用分配而不是数据库自增，Hibernate可以把插入合并为JDBC批量执行
+ */
+@Entity
+@Table(name = "task_state")
+@IdClass(TaskEntity.Key.class)
+class TaskEntity {
+
+    private static final String DEPENDENCY_SEPARATOR = "\n";
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "project_id")
+    private ProjectStateEntity project;
+
+    @Id
+    @Column(name = "task_id", length = 128)
+    private String taskId;
+
+    @Column(name = "slot", nullable = false)
+    private int slot;   // 任务在项目中的下标，加载时按下标恢复顺序
+
+    @Column(name = "role", length = 64)
+    private String role;
+
+    @Lob
+    @Column(name = "dependencies")
+    private String dependencies;   // 依赖的任务ID，按行分隔；汇聚任务的依赖可能很多，不限制长度
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private Task.TaskStatus status;
+
+    @Column(name = "retry_count", nullable = false)
+    private int retryCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "description", length = 10000)
+    private String description;
+
+    @Column(name = "timeout_millis", nullable = false)
+    private long timeoutMillis;
+
+    protected TaskEntity() {
+    }
+
+    TaskEntity(ProjectStateEntity project, int slot, Task task) {
+        this.project = project;
+        this.taskId = task.getId();
+        update(slot, task);
+    }
+
+    /**
+     * 用任务的当前状态覆盖这一行
+     */
+    void update(int slot, Task task) {
+        this.slot = slot;
+        this.role = task.getRole();
+        this.dependencies = String.join(DEPENDENCY_SEPARATOR, task.getDependencies());
+        this.status = task.getStatus();
+        this.retryCount = task.getRetryCount();
+        this.createdAt = task.getCreatedAt();
+        this.updatedAt = task.getUpdatedAt();
+        this.description = task.getDescription();
+        this.timeoutMillis = task.getTimeoutMillis();
+    }
+
+    Task toTask() {
+        List<String> dependencyList = dependencies == null || dependencies.isEmpty()
+            ? List.of()
+            : List.of(dependencies.split(DEPENDENCY_SEPARATOR));
+        return new Task(taskId, role, dependencyList, status, retryCount, createdAt, updatedAt, description, timeoutMillis);
+    }
+
+    String getTaskId() { return taskId; }
+
+    /**
+     * 联合主键，字段名与实体中的@Id字段一致
+     */
+    public static class Key implements Serializable {
+        private String project;
+        private String taskId;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(project, key.project) && Objects.equals(taskId, key.taskId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(project, taskId);
+        }
+    }
+}
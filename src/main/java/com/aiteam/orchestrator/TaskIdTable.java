@@ -0,0 +1,110 @@
+package com.aiteam.orchestrator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * 任务ID到连续整数下标的映射表
+ * 下标按添加顺序从0开始分配，只增不删；使用开放寻址的int数组保存散列桶，
+ * 不为每个任务创建Map节点和Integer对象，适合任务数很多的计划
+ * 写操作需由调用方加锁串行执行；读操作不需要加锁，可以与写操作并发：
+ * 写入方先写入任务ID再以release语义发布散列桶，读取方以acquire语义读取散列桶，
+ * 因此查到的下标对应的任务ID一定可见，正在添加的ID可能暂时查不到
+ */
+final class TaskIdTable {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private volatile String[] ids;   // 下标 -> 任务ID
+    private volatile int[] buckets;  // 散列桶 -> 下标 + 1，0表示空桶
+    private volatile int size;
+
+    TaskIdTable() {
+        this.ids = new String[MIN_CAPACITY];
+        this.buckets = new int[MIN_CAPACITY * 2];
+    }
+
+    private TaskIdTable(String[] ids, int[] buckets, int size) {
+        this.ids = ids;
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 任务ID对应的下标，不存在时返回-1
+     */
+    int slotOf(Object taskId) {
+        if (taskId == null) {
+            return -1;
+        }
+        int[] table = buckets;
+        int mask = table.length - 1;
+        for (int bucket = spread(taskId.hashCode()) & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = (int) BUCKETS.getAcquire(table, bucket);
+            if (entry == 0) {
+                return -1;
+            }
+            if (ids[entry - 1].equals(taskId)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    String idAt(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * 为新的任务ID分配下一个下标，调用方需确认ID尚不存在
+     */
+    int add(String taskId) {
+        int slot = size;
+        String[] current = ids;
+        if (slot == current.length) {
+            current = Arrays.copyOf(current, slot * 2);
+        }
+        current[slot] = taskId;
+        ids = current;
+        if ((slot + 1) * 2 > buckets.length) {
+            rehash(buckets.length * 2, slot + 1);
+        } else {
+            insert(buckets, slot);
+        }
+        size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * 复制一份只读副本，供快照使用
+     */
+    TaskIdTable copy() {
+        return new TaskIdTable(Arrays.copyOf(ids, size), buckets.clone(), size);
+    }
+
+    private void rehash(int capacity, int count) {
+        int[] rehashed = new int[capacity];
+        for (int slot = 0; slot < count; slot++) {
+            insert(rehashed, slot);
+        }
+        buckets = rehashed;
+    }
+
+    private void insert(int[] table, int slot) {
+        int mask = table.length - 1;
+        int bucket = spread(ids[slot].hashCode()) & mask;
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        BUCKETS.setRelease(table, bucket, slot + 1);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
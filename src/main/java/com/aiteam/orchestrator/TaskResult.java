@@ -0,0 +1,26 @@
+package com.aiteam.orchestrator;
+
+/**
+ * 代理执行任务的结果
+ */
+public class TaskResult {
+
+    private final boolean success;
+    private final String message;   // 执行输出或失败原因
+
+    public TaskResult(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    public static TaskResult success(String output) {
+        return new TaskResult(true, output);
+    }
+
+    public static TaskResult failure(String reason) {
+        return new TaskResult(false, reason);
+    }
+
+    public boolean isSuccess() { return success; }
+    public String getMessage() { return message; }
+}
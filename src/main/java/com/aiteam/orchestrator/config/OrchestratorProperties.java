@@ -0,0 +1,186 @@
+package com.aiteam.orchestrator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 编排器配置 (对应application.yml中的agentcorp.orchestrator)
+ */
+@Component
+@ConfigurationProperties(prefix = "agentcorp.orchestrator")
+public class OrchestratorProperties {
+
+    private int maxRetryCount = 3;
+    private long retryInitialBackoff = 1000;
+    private long retryMaxBackoff = 30000;
+    private double retryBackoffMultiplier = 2.0;
+    private long executionTimeout = 300000;
+    private Map<String, Long> roleExecutionTimeouts = new HashMap<>();
+    private long cancelGracePeriod = 5000;
+    private boolean hedgingEnabled = false;
+    private double hedgeBudget = 0.05;
+    private int hedgeMinSamples = 20;
+    private int batchMaxSize = 8;
+    private long batchWindow = 20;
+    private long stateFlushInterval = 200;
+    private StateStore stateStore = StateStore.REDIS;
+    private String stateJournalDir = "data/state-journal";
+    private int stateJournalSegmentSize = 64 * 1024 * 1024;
+    private int stateJournalSnapshotRecords = 100000;
+    private long stateJournalSnapshotInterval = 600000;
+    private boolean stateCacheEnabled = true;
+    private int stateCacheMaxSize = 1000;
+    private long stateCacheTtl = 30000;
+    private long websocketUpdateInterval = 5000;
+    private ExecutionMode executionMode = ExecutionMode.PARALLEL;
+    private int workerPoolSize = 8;
+    private int agentPoolSize = 2;
+    private Map<String, Integer> agentPoolSizes = new HashMap<>();
+    private ExecutorType executorType = ExecutorType.PLATFORM;
+    private int maxConcurrentTasks = 1000;
+    private double defaultProjectWeight = 1.0;
+    private int defaultRoleConcurrency = 0;
+    private Map<String, Integer> roleConcurrency = new HashMap<>();
+    private SchedulingPolicy schedulingPolicy = SchedulingPolicy.CRITICAL_PATH;
+    private long defaultTaskDuration = 1000;
+    private Map<String, Long> roleDurationEstimates = new HashMap<>();
+
+    // Getters and Setters
+    public int getMaxRetryCount() { return maxRetryCount; }
+    public void setMaxRetryCount(int maxRetryCount) { this.maxRetryCount = maxRetryCount; }
+
+    public long getRetryInitialBackoff() { return retryInitialBackoff; }
+    public void setRetryInitialBackoff(long retryInitialBackoff) { this.retryInitialBackoff = retryInitialBackoff; }
+
+    public long getRetryMaxBackoff() { return retryMaxBackoff; }
+    public void setRetryMaxBackoff(long retryMaxBackoff) { this.retryMaxBackoff = retryMaxBackoff; }
+
+    public double getRetryBackoffMultiplier() { return retryBackoffMultiplier; }
+    public void setRetryBackoffMultiplier(double retryBackoffMultiplier) { this.retryBackoffMultiplier = retryBackoffMultiplier; }
+
+    public long getExecutionTimeout() { return executionTimeout; }
+    public void setExecutionTimeout(long executionTimeout) { this.executionTimeout = executionTimeout; }
+
+    public Map<String, Long> getRoleExecutionTimeouts() { return roleExecutionTimeouts; }
+    public void setRoleExecutionTimeouts(Map<String, Long> roleExecutionTimeouts) { this.roleExecutionTimeouts = roleExecutionTimeouts; }
+
+    public long getCancelGracePeriod() { return cancelGracePeriod; }
+    public void setCancelGracePeriod(long cancelGracePeriod) { this.cancelGracePeriod = cancelGracePeriod; }
+
+    public boolean isHedgingEnabled() { return hedgingEnabled; }
+    public void setHedgingEnabled(boolean hedgingEnabled) { this.hedgingEnabled = hedgingEnabled; }
+
+    public double getHedgeBudget() { return hedgeBudget; }
+    public void setHedgeBudget(double hedgeBudget) { this.hedgeBudget = hedgeBudget; }
+
+    public int getHedgeMinSamples() { return hedgeMinSamples; }
+    public void setHedgeMinSamples(int hedgeMinSamples) { this.hedgeMinSamples = hedgeMinSamples; }
+
+    public int getBatchMaxSize() { return batchMaxSize; }
+    public void setBatchMaxSize(int batchMaxSize) { this.batchMaxSize = batchMaxSize; }
+
+    public long getBatchWindow() { return batchWindow; }
+    public void setBatchWindow(long batchWindow) { this.batchWindow = batchWindow; }
+
+    public long getStateFlushInterval() { return stateFlushInterval; }
+    public void setStateFlushInterval(long stateFlushInterval) { this.stateFlushInterval = stateFlushInterval; }
+
+    public StateStore getStateStore() { return stateStore; }
+    public void setStateStore(StateStore stateStore) { this.stateStore = stateStore; }
+
+    public String getStateJournalDir() { return stateJournalDir; }
+    public void setStateJournalDir(String stateJournalDir) { this.stateJournalDir = stateJournalDir; }
+
+    public int getStateJournalSegmentSize() { return stateJournalSegmentSize; }
+    public void setStateJournalSegmentSize(int stateJournalSegmentSize) { this.stateJournalSegmentSize = stateJournalSegmentSize; }
+
+    public int getStateJournalSnapshotRecords() { return stateJournalSnapshotRecords; }
+    public void setStateJournalSnapshotRecords(int stateJournalSnapshotRecords) { this.stateJournalSnapshotRecords = stateJournalSnapshotRecords; }
+
+    public long getStateJournalSnapshotInterval() { return stateJournalSnapshotInterval; }
+    public void setStateJournalSnapshotInterval(long stateJournalSnapshotInterval) { this.stateJournalSnapshotInterval = stateJournalSnapshotInterval; }
+
+    public boolean isStateCacheEnabled() { return stateCacheEnabled; }
+    public void setStateCacheEnabled(boolean stateCacheEnabled) { this.stateCacheEnabled = stateCacheEnabled; }
+
+    public int getStateCacheMaxSize() { return stateCacheMaxSize; }
+    public void setStateCacheMaxSize(int stateCacheMaxSize) { this.stateCacheMaxSize = stateCacheMaxSize; }
+
+    public long getStateCacheTtl() { return stateCacheTtl; }
+    public void setStateCacheTtl(long stateCacheTtl) { this.stateCacheTtl = stateCacheTtl; }
+
+    public long getWebsocketUpdateInterval() { return websocketUpdateInterval; }
+    public void setWebsocketUpdateInterval(long websocketUpdateInterval) { this.websocketUpdateInterval = websocketUpdateInterval; }
+
+    public ExecutionMode getExecutionMode() { return executionMode; }
+    public void setExecutionMode(ExecutionMode executionMode) { this.executionMode = executionMode; }
+
+    public int getWorkerPoolSize() { return workerPoolSize; }
+    public void setWorkerPoolSize(int workerPoolSize) { this.workerPoolSize = workerPoolSize; }
+
+    public int getAgentPoolSize() { return agentPoolSize; }
+    public void setAgentPoolSize(int agentPoolSize) { this.agentPoolSize = agentPoolSize; }
+
+    public Map<String, Integer> getAgentPoolSizes() { return agentPoolSizes; }
+    public void setAgentPoolSizes(Map<String, Integer> agentPoolSizes) { this.agentPoolSizes = agentPoolSizes; }
+
+    public ExecutorType getExecutorType() { return executorType; }
+    public void setExecutorType(ExecutorType executorType) { this.executorType = executorType; }
+
+    public int getMaxConcurrentTasks() { return maxConcurrentTasks; }
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) { this.maxConcurrentTasks = maxConcurrentTasks; }
+
+    public double getDefaultProjectWeight() { return defaultProjectWeight; }
+    public void setDefaultProjectWeight(double defaultProjectWeight) { this.defaultProjectWeight = defaultProjectWeight; }
+
+    public int getDefaultRoleConcurrency() { return defaultRoleConcurrency; }
+    public void setDefaultRoleConcurrency(int defaultRoleConcurrency) { this.defaultRoleConcurrency = defaultRoleConcurrency; }
+
+    public Map<String, Integer> getRoleConcurrency() { return roleConcurrency; }
+    public void setRoleConcurrency(Map<String, Integer> roleConcurrency) { this.roleConcurrency = roleConcurrency; }
+
+    public SchedulingPolicy getSchedulingPolicy() { return schedulingPolicy; }
+    public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) { this.schedulingPolicy = schedulingPolicy; }
+
+    public long getDefaultTaskDuration() { return defaultTaskDuration; }
+    public void setDefaultTaskDuration(long defaultTaskDuration) { this.defaultTaskDuration = defaultTaskDuration; }
+
+    public Map<String, Long> getRoleDurationEstimates() { return roleDurationEstimates; }
+    public void setRoleDurationEstimates(Map<String, Long> roleDurationEstimates) { this.roleDurationEstimates = roleDurationEstimates; }
+
+    /**
+     * 任务执行模式
+     */
+    public enum ExecutionMode {
+        SEQUENTIAL, // 在调用线程上逐个执行
+        PARALLEL    // 依赖满足的任务并行提交到工作线程池
+    }
+
+    /**
+     * 并行模式下执行代理调用的线程类型
+     */
+    public enum ExecutorType {
+        PLATFORM, // 固定大小的ForkJoinPool，并发数受worker-pool-size限制
+        VIRTUAL   // 每个代理调用一个虚拟线程，阻塞在LLM/工具I/O上时不占用平台线程
+    }
+
+    /**
+     * 项目状态的持久化存储
+     */
+    public enum StateStore {
+        REDIS,    // 每个项目保存为Redis Hash
+        DATABASE, // 通过JPA保存到关系数据库，每个任务一行
+        JOURNAL   // 追加到本地内存映射日志文件，适合不部署Redis的单节点
+    }
+
+    /**
+     * 就绪任务多于可用工作线程时的出队顺序
+     */
+    public enum SchedulingPolicy {
+        FIFO,          // 按计划中的任务顺序
+        CRITICAL_PATH  // 优先执行到终点任务剩余路径最长的任务
+    }
+}
@@ -2,6 +2,7 @@ package com.aiteam.orchestrator.controller;
 
 import com.aiteam.orchestrator.Agent;
 import com.aiteam.orchestrator.AgentRepository;
+import com.aiteam.orchestrator.RoleBulkhead;
 import com.aiteam.orchestrator.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,9 @@ public class AgentController {
     @Autowired
     private AgentRepository agentRepository;
 
+    @Autowired
+    private RoleBulkhead roleBulkhead;
+
     /**
      * 获取所有Agent (组织架构管理页面)
      */
@@ -49,8 +53,10 @@ public class AgentController {
             agent.setAgentType(request.getAgentType());
             agent.setDescription(request.getDescription());
             agent.setActive(true);
+            agent.setMaxConcurrency(request.getMaxConcurrency());
 
             agentRepository.save(agent);
+            roleBulkhead.applyAgentLimit(agent.getRoleName(), agent.getMaxConcurrency());
 
             AgentResponse response = convertToResponse(agent);
             return ResponseEntity.ok(response);
@@ -72,12 +78,19 @@ public class AgentController {
                 return ResponseEntity.notFound().build();
             }
 
+            String previousRole = agent.getRoleName();
             agent.setRoleName(request.getRoleName());
             agent.setAgentType(request.getAgentType());
             agent.setDescription(request.getDescription());
             agent.setActive(request.isActive());
+            agent.setMaxConcurrency(request.getMaxConcurrency());
 
             agentRepository.save(agent);
+            // 并发上限变更立即作用于正在执行的项目；角色改名时旧角色恢复配置上限
+            if (previousRole != null && !previousRole.equals(agent.getRoleName())) {
+                roleBulkhead.clearAgentLimit(previousRole);
+            }
+            roleBulkhead.applyAgentLimit(agent.getRoleName(), agent.getMaxConcurrency());
 
             AgentResponse response = convertToResponse(agent);
             return ResponseEntity.ok(response);
@@ -92,7 +105,11 @@ public class AgentController {
     @DeleteMapping("/{agentId}")
     public ResponseEntity<Void> deleteAgent(@PathVariable String agentId) {
         try {
+            Agent agent = agentRepository.findById(agentId);
             agentRepository.delete(agentId);
+            if (agent != null) {
+                roleBulkhead.clearAgentLimit(agent.getRoleName());
+            }
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -121,7 +138,8 @@ public class AgentController {
                 new FormField("roleName", "角色名称", "text", agent.getRoleName()),
                 new FormField("description", "角色描述", "textarea", agent.getDescription()),
                 new FormField("agentType", "代理类型", "select", agent.getAgentType()),
-                new FormField("active", "启用状态", "checkbox", String.valueOf(agent.isActive()))
+                new FormField("active", "启用状态", "checkbox", String.valueOf(agent.isActive())),
+                new FormField("maxConcurrency", "并发上限", "number", String.valueOf(agent.getMaxConcurrency()))
             ));
 
             return ResponseEntity.ok(response);
@@ -168,6 +186,7 @@ public class AgentController {
         response.setAgentType(agent.getAgentType());
         response.setDescription(agent.getDescription());
         response.setActive(agent.isActive());
+        response.setMaxConcurrency(agent.getMaxConcurrency());
         response.setCreatedAt(java.time.LocalDateTime.now());
         response.setUpdatedAt(java.time.LocalDateTime.now());
 
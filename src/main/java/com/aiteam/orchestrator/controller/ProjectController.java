@@ -21,7 +21,10 @@ public class ProjectController {
     private Dispatcher dispatcher;
 
     @Autowired
-    private AgentOrchestrator orchestrator;
+    private ProjectExecutionService executionService;
+
+    @Autowired
+    private FairShareScheduler scheduler;
 
     @Autowired
     private AgentRepository agentRepository;
@@ -68,25 +71,37 @@ public class ProjectController {
         return ResponseEntity.ok(java.util.Collections.emptyList());
     }
 
+    /**
+     * 获取项目状态近端缓存的命中和淘汰统计，未启用缓存时返回404
+     */
+    @GetMapping("/state-cache")
+    public ResponseEntity<StateCacheStats> getStateCacheStats() {
+        if (stateRepository instanceof CachingProjectStateRepository cache) {
+            return ResponseEntity.ok(cache.getStats());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     /**
      * 获取项目详情 (看板视图)
      */
     @GetMapping("/{projectId}")
     public ResponseEntity<ProjectDetailResponse> getProject(@PathVariable String projectId) {
         try {
-            ProjectState state = stateRepository.load(projectId);
-            if (state == null) {
+            // 同一个快照生成整个响应，看板和任务列表来自同一时刻的状态
+            ProjectStateSnapshot snapshot = loadSnapshot(projectId);
+            if (snapshot == null) {
                 return ResponseEntity.notFound().build();
             }
 
             ProjectDetailResponse response = new ProjectDetailResponse();
-            response.setProjectId(state.getProjectId());
-            response.setStatus(state.getOverallStatus().toString());
-            response.setLastUpdated(state.getLastUpdated());
+            response.setProjectId(snapshot.getProjectId());
+            response.setStatus(snapshot.getOverallStatus().toString());
+            response.setLastUpdated(snapshot.getLastUpdated());
 
             // 转换为看板格式
-            response.setKanbanColumns(generateKanbanColumns(state));
-            response.setTasks(state.getTaskMap().values().stream().toList());
+            response.setKanbanColumns(generateKanbanColumns(snapshot));
+            response.setTasks(snapshot.getTasks());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -100,29 +115,30 @@ public class ProjectController {
     @PostMapping("/{projectId}/execute")
     public ResponseEntity<ExecutionResponse> executeProject(@PathVariable String projectId) {
         try {
-            ProjectState state = stateRepository.load(projectId);
-            if (state == null) {
+            ProjectStateSnapshot snapshot = stateRepository.loadSnapshot(projectId);
+            if (snapshot == null) {
                 return ResponseEntity.notFound().build();
             }
 
             ProjectPlan projectPlan = new ProjectPlan(
-                state.getProjectId(),
+                snapshot.getProjectId(),
                 "Executing Project",
                 "Running execution",
-                state.getTaskMap().values().stream().toList(),
+                snapshot.getTasks(),
                 java.time.LocalDateTime.now(),
                 java.time.LocalDateTime.now()
             );
 
-            // 异步执行项目
-            orchestrator.executeProject(projectPlan);
+            // 异步执行项目，提交后立即返回执行句柄，进度通过状态接口查询
+            ExecutionHandle handle = executionService.submit(projectPlan);
 
             ExecutionResponse response = new ExecutionResponse();
             response.setProjectId(projectId);
+            response.setExecutionId(handle.getExecutionId());
             response.setStatus("EXECUTING");
             response.setMessage("Project execution started");
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                 new ExecutionResponse(projectId, "ERROR", e.getMessage())
@@ -136,14 +152,45 @@ public class ProjectController {
     @PostMapping("/{projectId}/resume")
     public ResponseEntity<ExecutionResponse> resumeProject(@PathVariable String projectId) {
         try {
-            orchestrator.resumeExecution(projectId);
+            ExecutionHandle handle = executionService.resume(projectId);
 
             ExecutionResponse response = new ExecutionResponse();
             response.setProjectId(projectId);
+            response.setExecutionId(handle.getExecutionId());
             response.setStatus("RESUMED");
             response.setMessage("Project resumed from checkpoint");
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                new ExecutionResponse(projectId, "ERROR", e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * 取消项目执行，执行中的任务被中断并保留为可断点续传的状态
+     */
+    @PostMapping("/{projectId}/cancel")
+    public ResponseEntity<ExecutionResponse> cancelProject(@PathVariable String projectId) {
+        try {
+            ExecutionHandle handle = executionService.cancel(projectId);
+            if (handle == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            ExecutionResponse response = new ExecutionResponse();
+            response.setProjectId(projectId);
+            response.setExecutionId(handle.getExecutionId());
+            if (handle.isCancelRequested()) {
+                response.setStatus("CANCELLING");
+                response.setMessage("Project cancellation requested");
+            } else {
+                response.setStatus(handle.getStatus().toString());
+                response.setMessage("Project is not executing");
+            }
+
+            return ResponseEntity.accepted().body(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                 new ExecutionResponse(projectId, "ERROR", e.getMessage())
@@ -151,30 +198,59 @@ public class ProjectController {
         }
     }
 
+    /**
+     * 调整项目在多项目公平调度中的权重
+     * 权重在项目执行结束后清除，取消的项目保留权重以便续传
+     */
+    @PutMapping("/{projectId}/weight")
+    public ResponseEntity<ProjectWeightResponse> updateProjectWeight(
+            @PathVariable String projectId,
+            @RequestBody UpdateProjectWeightRequest request) {
+        try {
+            // 只接受已存在的项目，权重表不会积累未知项目
+            if (loadSnapshot(projectId) == null) {
+                return ResponseEntity.notFound().build();
+            }
+            scheduler.setWeight(projectId, request.getWeight());
+
+            ProjectWeightResponse response = new ProjectWeightResponse();
+            response.setProjectId(projectId);
+            response.setWeight(scheduler.getWeight(projectId));
+            response.setQueueWait(scheduler.getQueueWaitStats(projectId));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * 获取项目状态 (实时更新)
      */
     @GetMapping("/{projectId}/status")
     public ResponseEntity<ProjectStatusResponse> getProjectStatus(@PathVariable String projectId) {
         try {
-            ProjectState state = stateRepository.load(projectId);
-            if (state == null) {
+            ProjectStateSnapshot snapshot = loadSnapshot(projectId);
+            if (snapshot == null) {
                 return ResponseEntity.notFound().build();
             }
 
             ProjectStatusResponse response = new ProjectStatusResponse();
-            response.setProjectId(state.getProjectId());
-            response.setOverallStatus(state.getOverallStatus().toString());
-            response.setTaskCount(state.getTaskMap().size());
-            response.setCompletedTasks(state.getTaskMap().values().stream()
-                .mapToInt(task -> task.getStatus() == Task.TaskStatus.COMPLETED ? 1 : 0)
-                .sum());
-            response.setFailedTasks(state.getTaskMap().values().stream()
-                .mapToInt(task -> task.getStatus() == Task.TaskStatus.FAILED ? 1 : 0)
-                .sum());
-            response.setRunningTasks(state.getTaskMap().values().stream()
-                .mapToInt(task -> task.getStatus() == Task.TaskStatus.RUNNING ? 1 : 0)
-                .sum());
+            response.setProjectId(snapshot.getProjectId());
+            ExecutionHandle execution = executionService.getExecution(projectId);
+            if (execution != null) {
+                response.setExecutionId(execution.getExecutionId());
+                response.setExecutionStatus(execution.getStatus().toString());
+            }
+            QueueWaitStats queueWait = scheduler.getQueueWaitStats(projectId);
+            response.setWeight(scheduler.getWeight(projectId));
+            response.setQueueWaitP50Millis(queueWait.getP50Millis());
+            response.setQueueWaitP99Millis(queueWait.getP99Millis());
+            response.setOverallStatus(snapshot.getOverallStatus().toString());
+            response.setTaskCount(snapshot.getTaskCount());
+            response.setCompletedTasks(snapshot.countTasks(Task.TaskStatus.COMPLETED));
+            response.setFailedTasks(snapshot.countTasks(Task.TaskStatus.FAILED));
+            response.setRunningTasks(snapshot.countTasks(Task.TaskStatus.RUNNING));
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -182,26 +258,37 @@ public class ProjectController {
         }
     }
 
+    /**
+     * 加载项目状态的只读快照，执行中的项目直接读取内存中的实时状态
+     */
+    private ProjectStateSnapshot loadSnapshot(String projectId) {
+        ExecutionHandle execution = executionService.getExecution(projectId);
+        if (execution != null && execution.isActive()) {
+            return execution.getState().snapshot();
+        }
+        return stateRepository.loadSnapshot(projectId);
+    }
+
     /**
      * 生成看板列数据
      */
-    private List<KanbanColumn> generateKanbanColumns(ProjectState state) {
+    private List<KanbanColumn> generateKanbanColumns(ProjectStateSnapshot snapshot) {
         return java.util.Arrays.asList(
             new KanbanColumn("待处理", "pending",
-                state.getTaskMap().values().stream()
-                    .filter(task -> task.getStatus() == Task.TaskStatus.PENDING)
+                snapshot.getTasks().stream()
+                    .filter(task -> snapshot.getTaskStatus(task.getId()) == Task.TaskStatus.PENDING)
                     .toList()),
             new KanbanColumn("需求分析中", "analyzing",
-                state.getTaskMap().values().stream()
-                    .filter(task -> task.getStatus() == Task.TaskStatus.RUNNING)
+                snapshot.getTasks().stream()
+                    .filter(task -> snapshot.getTaskStatus(task.getId()) == Task.TaskStatus.RUNNING)
                     .toList()),
             new KanbanColumn("开发中", "developing",
                 java.util.Collections.emptyList()), // TODO: 根据实际状态过滤
             new KanbanColumn("测试中", "testing",
                 java.util.Collections.emptyList()), // TODO: 根据实际状态过滤
             new KanbanColumn("已完成", "completed",
-                state.getTaskMap().values().stream()
-                    .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
+                snapshot.getTasks().stream()
+                    .filter(task -> snapshot.getTaskStatus(task.getId()) == Task.TaskStatus.COMPLETED)
                     .toList())
         );
     }
@@ -9,6 +9,7 @@ public class AgentResponse {
     private String agentId;
     private String roleName;
     private String agentType;
+    private int maxConcurrency;
     private String description;
     private boolean active;
     private LocalDateTime createdAt;
@@ -24,6 +25,9 @@ public class AgentResponse {
     public String getAgentType() { return agentType; }
     public void setAgentType(String agentType) { this.agentType = agentType; }
 
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
@@ -7,6 +7,7 @@ public class CreateAgentRequest {
     private String roleName;
     private String description;
     private String agentType;
+    private int maxConcurrency;
 
     // Getters and Setters
     public String getRoleName() { return roleName; }
@@ -17,4 +18,7 @@ public class CreateAgentRequest {
 
     public String getAgentType() { return agentType; }
     public void setAgentType(String agentType) { this.agentType = agentType; }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
 }
\ No newline at end of file
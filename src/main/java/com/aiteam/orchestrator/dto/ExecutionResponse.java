@@ -5,6 +5,7 @@ package com.aiteam.orchestrator.dto;
  */
 public class ExecutionResponse {
     private String projectId;
+    private String executionId;
     private String status;
     private String message;
 
@@ -20,6 +21,9 @@ public class ExecutionResponse {
     public String getProjectId() { return projectId; }
     public void setProjectId(String projectId) { this.projectId = projectId; }
 
+    public String getExecutionId() { return executionId; }
+    public void setExecutionId(String executionId) { this.executionId = executionId; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
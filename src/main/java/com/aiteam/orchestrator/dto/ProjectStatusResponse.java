@@ -5,16 +5,27 @@ package com.aiteam.orchestrator.dto;
  */
 public class ProjectStatusResponse {
     private String projectId;
+    private String executionId;
+    private String executionStatus;
     private String overallStatus;
     private int taskCount;
     private int completedTasks;
     private int failedTasks;
     private int runningTasks;
+    private double weight;
+    private double queueWaitP50Millis;
+    private double queueWaitP99Millis;
 
     // Getters and Setters
     public String getProjectId() { return projectId; }
     public void setProjectId(String projectId) { this.projectId = projectId; }
 
+    public String getExecutionId() { return executionId; }
+    public void setExecutionId(String executionId) { this.executionId = executionId; }
+
+    public String getExecutionStatus() { return executionStatus; }
+    public void setExecutionStatus(String executionStatus) { this.executionStatus = executionStatus; }
+
     public String getOverallStatus() { return overallStatus; }
     public void setOverallStatus(String overallStatus) { this.overallStatus = overallStatus; }
 
@@ -29,4 +40,13 @@ public class ProjectStatusResponse {
 
     public int getRunningTasks() { return runningTasks; }
     public void setRunningTasks(int runningTasks) { this.runningTasks = runningTasks; }
+
+    public double getWeight() { return weight; }
+    public void setWeight(double weight) { this.weight = weight; }
+
+    public double getQueueWaitP50Millis() { return queueWaitP50Millis; }
+    public void setQueueWaitP50Millis(double queueWaitP50Millis) { this.queueWaitP50Millis = queueWaitP50Millis; }
+
+    public double getQueueWaitP99Millis() { return queueWaitP99Millis; }
+    public void setQueueWaitP99Millis(double queueWaitP99Millis) { this.queueWaitP99Millis = queueWaitP99Millis; }
 }
\ No newline at end of file
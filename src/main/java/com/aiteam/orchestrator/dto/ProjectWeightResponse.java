@@ -0,0 +1,22 @@
+package com.aiteam.orchestrator.dto;
+
+import com.aiteam.orchestrator.QueueWaitStats;
+
+/**
+ * 项目调度权重响应DTO
+ */
+public class ProjectWeightResponse {
+    private String projectId;
+    private double weight;
+    private QueueWaitStats queueWait;
+
+    // Getters and Setters
+    public String getProjectId() { return projectId; }
+    public void setProjectId(String projectId) { this.projectId = projectId; }
+
+    public double getWeight() { return weight; }
+    public void setWeight(double weight) { this.weight = weight; }
+
+    public QueueWaitStats getQueueWait() { return queueWait; }
+    public void setQueueWait(QueueWaitStats queueWait) { this.queueWait = queueWait; }
+}
@@ -7,6 +7,7 @@ public class UpdateAgentRequest {
     private String roleName;
     private String description;
     private String agentType;
+    private int maxConcurrency;
     private boolean active;
 
     // Getters and Setters
@@ -19,6 +20,9 @@ public class UpdateAgentRequest {
     public String getAgentType() { return agentType; }
     public void setAgentType(String agentType) { this.agentType = agentType; }
 
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.aiteam.orchestrator.dto;
+
+/**
+ * 调整项目调度权重请求DTO
+ */
+public class UpdateProjectWeightRequest {
+    private double weight;
+
+    // Getters and Setters
+    public double getWeight() { return weight; }
+    public void setWeight(double weight) { this.weight = weight; }
+}
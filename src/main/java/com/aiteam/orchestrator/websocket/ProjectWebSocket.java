@@ -1,7 +1,7 @@
 package com.aiteam.orchestrator.websocket;
 
-import com.aiteam.orchestrator.ProjectState;
 import com.aiteam.orchestrator.ProjectStateRepository;
+import com.aiteam.orchestrator.ProjectStateSnapshot;
 import com.aiteam.orchestrator.dto.ProjectStatusResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -92,21 +92,15 @@ public class ProjectWebSocket {
      */
     private void sendInitialStatus(String projectId, Session session) {
         try {
-            ProjectState state = stateRepository.load(projectId);
-            if (state != null) {
+            ProjectStateSnapshot snapshot = stateRepository.loadSnapshot(projectId);
+            if (snapshot != null) {
                 ProjectStatusResponse response = new ProjectStatusResponse();
-                response.setProjectId(state.getProjectId());
-                response.setOverallStatus(state.getOverallStatus().toString());
-                response.setTaskCount(state.getTaskMap().size());
-                response.setCompletedTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.COMPLETED ? 1 : 0)
-                    .sum());
-                response.setFailedTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.FAILED ? 1 : 0)
-                    .sum());
-                response.setRunningTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.RUNNING ? 1 : 0)
-                    .sum());
+                response.setProjectId(snapshot.getProjectId());
+                response.setOverallStatus(snapshot.getOverallStatus().toString());
+                response.setTaskCount(snapshot.getTaskCount());
+                response.setCompletedTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.COMPLETED));
+                response.setFailedTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.FAILED));
+                response.setRunningTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.RUNNING));
 
                 sendMessage(session, "INITIAL_STATUS", objectMapper.writeValueAsString(response));
             }
@@ -120,21 +114,15 @@ public class ProjectWebSocket {
      */
     private void sendProjectStatus(String projectId, Session session) {
         try {
-            ProjectState state = stateRepository.load(projectId);
-            if (state != null) {
+            ProjectStateSnapshot snapshot = stateRepository.loadSnapshot(projectId);
+            if (snapshot != null) {
                 ProjectStatusResponse response = new ProjectStatusResponse();
-                response.setProjectId(state.getProjectId());
-                response.setOverallStatus(state.getOverallStatus().toString());
-                response.setTaskCount(state.getTaskMap().size());
-                response.setCompletedTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.COMPLETED ? 1 : 0)
-                    .sum());
-                response.setFailedTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.FAILED ? 1 : 0)
-                    .sum());
-                response.setRunningTasks(state.getTaskMap().values().stream()
-                    .mapToInt(task -> task.getStatus() == com.aiteam.orchestrator.Task.TaskStatus.RUNNING ? 1 : 0)
-                    .sum());
+                response.setProjectId(snapshot.getProjectId());
+                response.setOverallStatus(snapshot.getOverallStatus().toString());
+                response.setTaskCount(snapshot.getTaskCount());
+                response.setCompletedTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.COMPLETED));
+                response.setFailedTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.FAILED));
+                response.setRunningTasks(snapshot.countTasks(com.aiteam.orchestrator.Task.TaskStatus.RUNNING));
 
                 sendMessage(session, "STATUS_UPDATE", objectMapper.writeValueAsString(response));
             }
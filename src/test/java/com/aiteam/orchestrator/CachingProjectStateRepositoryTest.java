@@ -0,0 +1,132 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.aiteam.orchestrator.TestPlans.chain;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CachingProjectStateRepository返回的状态互不共享，以及节点间通知的合并
+ */
+class CachingProjectStateRepositoryTest {
+
+    private final InMemoryRepository store = new InMemoryRepository();
+    private final List<String> published = new ArrayList<>();
+    private final CachingProjectStateRepository cache = new CachingProjectStateRepository(store, 10, 60_000, published::add);
+
+    @Test
+    void loadReturnsIndependentStates() {
+        cache.save(chain("project", 3));
+
+        ProjectState first = cache.load("project");
+        ProjectState second = cache.load("project");
+        assertNotSame(first, second);
+        first.startTask("task-0");
+
+        // 未保存的修改对其他调用方不可见
+        assertEquals(Task.TaskStatus.PENDING, second.getTaskStatus("task-0"));
+        assertEquals(Task.TaskStatus.PENDING, cache.load("project").getTaskStatus("task-0"));
+        assertSame(cache.loadSnapshot("project"), cache.loadSnapshot("project"));
+        assertEquals(0, store.loads);
+    }
+
+    @Test
+    void deltaSavesPublishOnlyWhenAnotherNodeLoaded() {
+        ProjectState state = chain("project", 3);
+        cache.save(state);
+        assertEquals(1, invalidations());
+
+        for (int i = 0; i < 3; i++) {
+            state.startTask("task-" + i);
+            cache.saveDelta(state, state.drainDelta());
+        }
+        assertEquals(1, invalidations());
+
+        // 其他节点在本节点通知之后加载，下一次保存时通知一次，之后的保存不再通知
+        state.completeTask("task-0");
+        cache.onMessage("other|loaded|project");
+        assertEquals(2, invalidations());
+        cache.onMessage("other|loaded|project");
+        for (int i = 1; i < 3; i++) {
+            state.completeTask("task-" + i);
+            cache.saveDelta(state, state.drainDelta());
+        }
+        assertEquals(3, invalidations());
+        assertEquals(3, cache.getStats().getInvalidationsSent());
+    }
+
+    @Test
+    void loadAnnouncedAfterUnpublishedWriteIsInvalidatedImmediately() {
+        ProjectState state = chain("project", 3);
+        cache.save(state);
+        state.startTask("task-0");
+        cache.saveDelta(state, state.drainDelta());
+        assertEquals(1, invalidations());
+
+        // 其他节点的加载可能读到了上一次写入之前的数据
+        cache.onMessage("other|loaded|project");
+        assertEquals(2, invalidations());
+        cache.onMessage("other|loaded|project");
+        assertEquals(2, invalidations());
+    }
+
+    @Test
+    void missAnnouncesLoadAndInvalidationDropsEntry() {
+        store.save(chain("project", 3));
+
+        assertEquals(3, cache.load("project").getTaskCount());
+        assertTrue(published.get(published.size() - 1).endsWith("|loaded|project"));
+
+        // 本节点自己发出的通知被忽略
+        cache.onMessage(published.get(published.size() - 1).replace("loaded", "invalidate"));
+        cache.load("project");
+        assertEquals(1, store.loads);
+
+        cache.onMessage("other|invalidate|project");
+        cache.load("project");
+        assertEquals(2, store.loads);
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    private long invalidations() {
+        return published.stream().filter(message -> message.contains("|invalidate|")).count();
+    }
+
+    /**
+     * 按快照保存的内存仓库，记录加载次数
+     */
+    private static class InMemoryRepository implements ProjectStateRepository {
+        private final Map<String, ProjectStateSnapshot> states = new HashMap<>();
+        private int loads;
+
+        @Override
+        public void save(ProjectState state) {
+            states.put(state.getProjectId(), state.snapshot());
+        }
+
+        @Override
+        public ProjectState load(String projectId) {
+            loads++;
+            ProjectStateSnapshot snapshot = states.get(projectId);
+            return snapshot != null ? ProjectState.fromSnapshot(snapshot) : null;
+        }
+
+        @Override
+        public void delete(String projectId) {
+            states.remove(projectId);
+        }
+
+        @Override
+        public boolean exists(String projectId) {
+            return states.containsKey(projectId);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.aiteam.orchestrator;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.aiteam.orchestrator.TestPlans.chain;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * DatabaseProjectStateRepository在内存H2上的读写
+ */
+class DatabaseProjectStateRepositoryTest {
+
+    private SessionFactory sessionFactory;
+    private DatabaseProjectStateRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = createSessionFactory("state-repository-test");
+        repository = createRepository(sessionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void savedStateLoadsInSlotOrder() {
+        ProjectState state = chain("project", 100);
+        state.startTask("task-0");
+        state.completeTask("task-0");
+        repository.save(state);
+
+        ProjectState loaded = repository.load("project");
+        assertEquals(100, loaded.getTaskCount());
+        assertEquals(Task.TaskStatus.COMPLETED, loaded.getTaskStatus("task-0"));
+        assertEquals(List.of("task-41"), loaded.getTask("task-42").getDependencies());
+        assertEquals("task-99", loaded.snapshot().getTasks().get(99).getId());
+        assertNull(repository.load("missing"));
+    }
+
+    @Test
+    void repeatedFullSaveUpdatesRowsInPlace() {
+        ProjectState state = chain("project", 10);
+        repository.save(state);
+        state.startTask("task-0");
+        repository.save(state);
+
+        ProjectState loaded = repository.load("project");
+        assertEquals(10, loaded.getTaskCount());
+        assertEquals(Task.TaskStatus.RUNNING, loaded.getTaskStatus("task-0"));
+
+        // 同一项目保存为更少的任务时删除多出的行
+        repository.save(chain("project", 4));
+        assertEquals(4, repository.load("project").getTaskCount());
+    }
+
+    @Test
+    void fullSaveRemovesReplacedTasks() {
+        ProjectState first = new ProjectState("project");
+        first.addTask(Task.create("A", "developer", List.of(), "a"));
+        first.addTask(Task.create("B", "developer", List.of(), "b"));
+        repository.save(first);
+
+        // 下标0上的任务换成了C，A的旧行不能留在表中
+        ProjectState second = new ProjectState("project");
+        second.addTask(Task.create("C", "developer", List.of(), "c"));
+        second.addTask(Task.create("B", "developer", List.of(), "b"));
+        repository.save(second);
+
+        List<String> taskIds = new ArrayList<>();
+        repository.load("project").snapshot().getTasks().forEach(task -> taskIds.add(task.getId()));
+        assertEquals(List.of("C", "B"), taskIds);
+    }
+
+    @Test
+    void deltaUpdatesOnlyChangedTasks() {
+        ProjectState state = chain("project", 10);
+        repository.save(state);
+        state.startTask("task-0");
+        state.addTask(Task.create("extra", "tester", List.of("task-9"), "extra"));
+
+        repository.saveDelta(state, state.drainDelta());
+
+        ProjectState loaded = repository.load("project");
+        assertEquals(11, loaded.getTaskCount());
+        assertEquals(Task.TaskStatus.RUNNING, loaded.getTaskStatus("task-0"));
+        assertEquals(List.of("task-9"), loaded.getTask("extra").getDependencies());
+    }
+
+    @Test
+    void transitionAfterFullSaveIsKeptForNextDelta() {
+        ProjectState state = chain("project", 3);
+        repository.save(state);
+        state.startTask("task-1");
+
+        ProjectStateDelta delta = state.drainDelta();
+        assertEquals(1, delta.getChangedTasks().size());
+        repository.saveDelta(state, delta);
+        assertEquals(Task.TaskStatus.RUNNING, repository.load("project").getTaskStatus("task-1"));
+    }
+
+    @Test
+    void largeFanInDependenciesAreStored() {
+        ProjectState state = chain("project", 2_000);
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            all.add("task-" + i);
+        }
+        state.addTask(Task.create("release", "ops", all, "depends on every task"));
+        repository.save(state);
+
+        assertEquals(all, repository.load("project").getTask("release").getDependencies());
+    }
+
+    /**
+     * 不启动Spring上下文，直接创建连接内存H2的SessionFactory，JDBC批量配置与application.yml一致
+     */
+    static SessionFactory createSessionFactory(String database) {
+        return new Configuration()
+            .addAnnotatedClass(ProjectStateEntity.class)
+            .addAnnotatedClass(TaskEntity.class)
+            .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+            .setProperty("hibernate.connection.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")
+            .setProperty("hibernate.connection.username", "sa")
+            .setProperty("hibernate.connection.password", "")
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            .setProperty("hibernate.jdbc.batch_size", "500")
+            .setProperty("hibernate.order_inserts", "true")
+            .setProperty("hibernate.order_updates", "true")
+            .buildSessionFactory();
+    }
+
+    static DatabaseProjectStateRepository createRepository(SessionFactory sessionFactory) {
+        return new DatabaseProjectStateRepository(
+            SharedEntityManagerCreator.createSharedEntityManager(sessionFactory),
+            new JpaTransactionManager(sessionFactory));
+    }
+}
@@ -0,0 +1,68 @@
+package com.aiteam.orchestrator;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * DatabaseProjectStateRepository在内存H2上的写入吞吐
+ * 10k个任务的项目：首次完整保存（批量INSERT）、无变化的完整保存、1k个任务的增量保存（批量UPDATE）和完整加载
+ * 运行方式: mvn test -Pbenchmark
+ */
+class DatabaseStateThroughputBenchmark {
+
+    private static final int TASK_COUNT = 10_000;
+    private static final int CHANGED_TASKS = 1_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void measureSaveAndLoadThroughput() {
+        try (SessionFactory sessionFactory = DatabaseProjectStateRepositoryTest.createSessionFactory("state-throughput")) {
+            DatabaseProjectStateRepository repository = DatabaseProjectStateRepositoryTest.createRepository(sessionFactory);
+            // 预热
+            repository.save(TestPlans.chain("warmup", TASK_COUNT));
+
+            long insert = 0;
+            long unchanged = 0;
+            long delta = 0;
+            long load = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                String projectId = "project-" + round;
+                ProjectState state = TestPlans.chain(projectId, TASK_COUNT);
+
+                long startedAt = System.nanoTime();
+                repository.save(state);
+                insert += System.nanoTime() - startedAt;
+
+                startedAt = System.nanoTime();
+                repository.save(state);
+                unchanged += System.nanoTime() - startedAt;
+
+                for (int i = 0; i < CHANGED_TASKS; i++) {
+                    state.startTask("task-" + (i * (TASK_COUNT / CHANGED_TASKS)));
+                }
+                startedAt = System.nanoTime();
+                repository.saveDelta(state, state.drainDelta());
+                delta += System.nanoTime() - startedAt;
+
+                startedAt = System.nanoTime();
+                ProjectState loaded = repository.load(projectId);
+                load += System.nanoTime() - startedAt;
+                assertEquals(TASK_COUNT, loaded.getTaskCount());
+                assertEquals(CHANGED_TASKS, loaded.countTasks(Task.TaskStatus.RUNNING));
+            }
+
+            System.out.printf("H2 state repository: %d tasks, average of %d rounds%n", TASK_COUNT, ROUNDS);
+            report("full save (insert)", insert, TASK_COUNT);
+            report("full save (unchanged)", unchanged, TASK_COUNT);
+            report("delta save (" + CHANGED_TASKS + " updated)", delta, CHANGED_TASKS);
+            report("load", load, TASK_COUNT);
+        }
+    }
+
+    private static void report(String operation, long totalNanos, int tasks) {
+        double millis = totalNanos / 1_000_000.0 / ROUNDS;
+        System.out.printf("  %-28s %8.1f ms, %10.0f tasks/s%n", operation, millis, tasks * 1000.0 / millis);
+    }
+}
@@ -0,0 +1,72 @@
+package com.aiteam.orchestrator;
+
+import com.aiteam.orchestrator.config.OrchestratorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 虚拟线程与固定大小平台线程池的执行器对比
+ * 10k个并发任务，每个任务阻塞等待模拟一次LLM/工具调用，比较全部完成的耗时
+ * 运行方式: mvn test -Pbenchmark
+ */
+class ExecutorModeBenchmark {
+
+    private static final int TASK_COUNT = 10_000;
+    private static final long CALL_LATENCY_MILLIS = 50;   // 模拟的单次代理调用耗时
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Test
+    void virtualThreadsOutperformFixedPoolOnBlockingCalls() throws Exception {
+        // 预热，避免首次创建线程和类加载计入结果
+        run(OrchestratorProperties.ExecutorType.VIRTUAL, 1_000);
+        run(OrchestratorProperties.ExecutorType.PLATFORM, 1_000);
+
+        long platform = run(OrchestratorProperties.ExecutorType.PLATFORM, TASK_COUNT);
+        long virtual = run(OrchestratorProperties.ExecutorType.VIRTUAL, TASK_COUNT);
+
+        System.out.printf("Executor benchmark: %d tasks x %dms blocking call%n", TASK_COUNT, CALL_LATENCY_MILLIS);
+        System.out.printf("  PLATFORM (%d threads): %d ms, %.0f tasks/s%n",
+            PLATFORM_POOL_SIZE, platform, TASK_COUNT * 1000.0 / platform);
+        System.out.printf("  VIRTUAL: %d ms, %.0f tasks/s%n", virtual, TASK_COUNT * 1000.0 / virtual);
+
+        // 固定线程池的下限是 任务数 / 线程数 * 单次耗时，虚拟线程不受线程数限制
+        assertTrue(virtual < platform, "virtual threads should finish blocking tasks sooner than a fixed pool");
+    }
+
+    /**
+     * 通过调度器提交任务并等待全部完成
+     * @return 从提交第一个任务到最后一个任务完成的毫秒数
+     */
+    private static long run(OrchestratorProperties.ExecutorType executorType, int taskCount) throws InterruptedException {
+        OrchestratorProperties properties = new OrchestratorProperties();
+        properties.setExecutorType(executorType);
+        properties.setWorkerPoolSize(PLATFORM_POOL_SIZE);
+        properties.setMaxConcurrentTasks(taskCount);
+        FairShareScheduler scheduler = new FairShareScheduler(properties,
+            new RoleBulkhead(properties, mock(AgentRepository.class)));
+
+        CountDownLatch done = new CountDownLatch(taskCount);
+        long startedAt = System.nanoTime();
+        try {
+            for (int i = 0; i < taskCount; i++) {
+                scheduler.submit("benchmark", "developer", CALL_LATENCY_MILLIS, () -> {
+                    try {
+                        Thread.sleep(CALL_LATENCY_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.MINUTES), "benchmark tasks did not finish");
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.aiteam.orchestrator.TestPlans.chain;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JournalProjectStateRepository的重启恢复、快照和损坏记录处理
+ */
+class JournalProjectStateRepositoryTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysSavesAndDeltas() {
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState state = chain("project", 3);
+            journal.save(state);
+            state.startTask("task-0");
+            journal.saveDelta(state, state.drainDelta());
+            journal.save(chain("deleted", 1));
+            journal.delete("deleted");
+        }
+
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState loaded = journal.load("project");
+            assertEquals(3, loaded.getTaskCount());
+            assertEquals(Task.TaskStatus.RUNNING, loaded.getTaskStatus("task-0"));
+            assertEquals(List.of("task-1"), loaded.getTask("task-2").getDependencies());
+            assertNull(journal.load("deleted"));
+        }
+    }
+
+    @Test
+    void snapshotByRecordCountCompactsSegmentsAndRecovers() throws IOException {
+        ProjectState state = chain("project", 50);
+        try (JournalProjectStateRepository journal = open(10)) {
+            journal.save(state);
+            for (int i = 0; i < 50; i++) {
+                state.startTask("task-" + i);
+                journal.saveDelta(state, state.drainDelta());
+            }
+            // 快照之后读取的任务来自快照文件
+            assertEquals(50, journal.load("project").countTasks(Task.TaskStatus.RUNNING));
+        }
+
+        assertEquals(1, files("snapshot-").size());
+        try (JournalProjectStateRepository journal = open(10)) {
+            ProjectState loaded = journal.load("project");
+            assertEquals(50, loaded.getTaskCount());
+            assertEquals(50, loaded.countTasks(Task.TaskStatus.RUNNING));
+        }
+    }
+
+    @Test
+    void segmentRollWritesSnapshotAndDeletesOldSegments() throws IOException {
+        try (JournalProjectStateRepository journal = open(0)) {
+            for (int round = 0; round < 20; round++) {
+                journal.save(chain("project", 100));
+            }
+            assertEquals(100, journal.load("project").getTaskCount());
+        }
+
+        assertEquals(1, files("snapshot-").size());
+        assertTrue(files("segment-").size() <= 2);
+        try (JournalProjectStateRepository journal = open(0)) {
+            assertEquals(100, journal.load("project").getTaskCount());
+        }
+    }
+
+    @Test
+    void corruptedTailRecordIsDiscardedOnReopen() throws IOException {
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState state = chain("project", 3);
+            journal.save(state);
+            state.startTask("task-0");
+            journal.saveDelta(state, state.drainDelta());
+        }
+        Path segment = files("segment-").get(0);
+        int last = lastRecordOffset(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer payload = ByteBuffer.allocate(1);
+            channel.read(payload, last + 8);
+            payload.put(0, (byte) (payload.get(0) ^ 0x7F)).rewind();
+            channel.write(payload, last + 8);
+        }
+
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState loaded = journal.load("project");
+            assertEquals(Task.TaskStatus.PENDING, loaded.getTaskStatus("task-0"));
+            // 损坏的记录被清除，之后追加的记录在再次重启后仍可重放
+            loaded.startTask("task-1");
+            journal.saveDelta(loaded, loaded.drainDelta());
+        }
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState loaded = journal.load("project");
+            assertEquals(Task.TaskStatus.PENDING, loaded.getTaskStatus("task-0"));
+            assertEquals(Task.TaskStatus.RUNNING, loaded.getTaskStatus("task-1"));
+        }
+    }
+
+    @Test
+    void truncatedSegmentKeepsCompleteRecords() throws IOException {
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState state = chain("project", 3);
+            journal.save(state);
+            state.startTask("task-0");
+            journal.saveDelta(state, state.drainDelta());
+        }
+        Path segment = files("segment-").get(0);
+        int last = lastRecordOffset(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(last + 12);
+        }
+
+        try (JournalProjectStateRepository journal = open(0)) {
+            ProjectState loaded = journal.load("project");
+            assertEquals(3, loaded.getTaskCount());
+            assertEquals(Task.TaskStatus.PENDING, loaded.getTaskStatus("task-0"));
+        }
+    }
+
+    @Test
+    void corruptedSnapshotIsRejected() throws IOException {
+        try (JournalProjectStateRepository journal = open(1)) {
+            journal.save(chain("project", 3));
+            journal.save(chain("project", 3));
+        }
+        Path snapshot = files("snapshot-").get(0);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x7F;
+        Files.write(snapshot, bytes);
+
+        assertThrows(ProjectStateRepository.StateStoreException.class, () -> open(1));
+    }
+
+    @Test
+    void failedSaveRestoresUnflushedTasks() {
+        JournalProjectStateRepository journal = open(0);
+        journal.close();
+        ProjectState state = chain("project", 3);
+
+        assertThrows(ProjectStateRepository.StateStoreException.class, () -> journal.save(state));
+        assertEquals(3, state.drainDelta().getChangedTasks().size());
+    }
+
+    private JournalProjectStateRepository open(int snapshotRecords) {
+        return new JournalProjectStateRepository(directory, SEGMENT_SIZE, snapshotRecords, 0);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    /**
+     * 按记录头中的长度找到日志段中最后一条记录的偏移
+     */
+    private static int lastRecordOffset(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 0;
+        int last = -1;
+        while (buffer.capacity() - offset >= 8 && buffer.getInt(offset) > 0) {
+            last = offset;
+            offset += 8 + buffer.getInt(offset);
+        }
+        return last;
+    }
+}
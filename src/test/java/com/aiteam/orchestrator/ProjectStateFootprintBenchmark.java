@@ -0,0 +1,80 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProjectState的堆内存占用
+ * 100k个任务的链式计划，对比ProjectState（含一个快照）与按任务ID保存Task对象、状态和重试次数的Map表示，
+ * 两者都包含任务ID和描述字符串
+ * 运行方式: mvn test -Pbenchmark
+ */
+class ProjectStateFootprintBenchmark {
+
+    private static final int TASK_COUNT = 100_000;
+    private static final int ROLE_COUNT = 8;
+
+    @Test
+    void projectStateUsesLessHeapThanTaskMaps() {
+        long mapBytes = retainedBytes(count -> {
+            Map<String, Task> tasks = new HashMap<>();
+            Map<String, Task.TaskStatus> statuses = new HashMap<>();
+            Map<String, Integer> retries = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                Task task = task(i);
+                tasks.put(task.getId(), task);
+                statuses.put(task.getId(), task.getStatus());
+                retries.put(task.getId(), task.getRetryCount());
+            }
+            return List.of(tasks, statuses, retries);
+        });
+
+        long stateBytes = retainedBytes(count -> {
+            ProjectState state = new ProjectState("footprint");
+            for (int i = 0; i < count; i++) {
+                state.addTask(task(i));
+            }
+            ProjectStateSnapshot snapshot = state.snapshot();
+            assertEquals(count, snapshot.getTaskCount());
+            return List.of(state, snapshot);
+        });
+
+        System.out.printf("ProjectState footprint: %d tasks%n", TASK_COUNT);
+        System.out.printf("  Map<String, Task> + status/retry maps: %d bytes/task%n", mapBytes / TASK_COUNT);
+        System.out.printf("  ProjectState + snapshot: %d bytes/task%n", stateBytes / TASK_COUNT);
+
+        assertTrue(stateBytes < mapBytes, "ProjectState should retain less heap than task maps");
+    }
+
+    private static Task task(int index) {
+        return Task.create("task-" + index, "role-" + (index % ROLE_COUNT),
+            index == 0 ? List.of() : List.of("task-" + (index - 1)), "description " + index);
+    }
+
+    /**
+     * 构建结构前后的已用堆之差，构建期间产生的临时对象在测量前被回收
+     */
+    private static long retainedBytes(IntFunction<Object> builder) {
+        long before = usedHeap();
+        Object retained = builder.apply(TASK_COUNT);
+        long after = usedHeap();
+        // 保证测量时结构仍然可达
+        assertTrue(retained != null);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
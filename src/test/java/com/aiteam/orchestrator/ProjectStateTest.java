@@ -0,0 +1,300 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProjectState的状态转换和快照一致性
+ */
+class ProjectStateTest {
+
+    private static final int THREADS = 8;
+    private static final int CHUNKS = 4;
+
+    @Test
+    void transitionsOnlyFromAllowedStatuses() {
+        ProjectState state = stateWithTasks(1);
+
+        assertFalse(state.completeTask("task-0"));
+        assertFalse(state.failTask("task-0"));
+        assertFalse(state.retryTask("task-0"));
+        assertTrue(state.startTask("task-0"));
+        assertFalse(state.startTask("task-0"));
+
+        assertTrue(state.retryTask("task-0"));
+        assertEquals(Task.TaskStatus.RETRYING, state.getTaskStatus("task-0"));
+        assertEquals(1, state.getRetryCount("task-0"));
+
+        assertTrue(state.startTask("task-0"));
+        assertTrue(state.resetTask("task-0"));
+        // 重试过的任务被中断后回到RETRYING
+        assertEquals(Task.TaskStatus.RETRYING, state.getTaskStatus("task-0"));
+
+        assertTrue(state.startTask("task-0"));
+        assertTrue(state.completeTask("task-0"));
+        assertFalse(state.failTask("task-0"));
+        assertFalse(state.startTask("task-0"));
+        assertEquals(Task.TaskStatus.COMPLETED, state.getTaskStatus("task-0"));
+        assertFalse(state.startTask("missing"));
+    }
+
+    @Test
+    void resetReturnsUnretriedTaskToPending() {
+        ProjectState state = stateWithTasks(1);
+        assertTrue(state.startTask("task-0"));
+        assertTrue(state.resetTask("task-0"));
+        assertEquals(Task.TaskStatus.PENDING, state.getTaskStatus("task-0"));
+    }
+
+    @Test
+    void concurrentStartsDispatchEachTaskOnce() throws Exception {
+        int taskCount = 2_000;
+        ProjectState state = stateWithTasks(taskCount);
+        AtomicInteger started = new AtomicInteger();
+
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < taskCount; i++) {
+                if (state.startTask("task-" + i)) {
+                    started.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(taskCount, started.get());
+        assertEquals(taskCount, state.countTasks(Task.TaskStatus.RUNNING));
+        assertEquals(0, state.countTasks(Task.TaskStatus.PENDING));
+    }
+
+    @Test
+    void concurrentTransitionsKeepStatusCountsExact() throws Exception {
+        int taskCount = 1_000;
+        ProjectState state = stateWithTasks(taskCount);
+
+        AtomicInteger retries = new AtomicInteger();
+
+        // 每个线程反复抢同一批任务：开始 -> 重试 -> 开始 -> 完成，只有抢到转换的线程继续
+        // RETRYING的任务可以被任一线程重新开始，同一任务可能被重试多次
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < taskCount; i++) {
+                String id = "task-" + i;
+                if (state.startTask(id) && state.retryTask(id)) {
+                    retries.incrementAndGet();
+                    if (state.startTask(id)) {
+                        state.completeTask(id);
+                    }
+                }
+            }
+        });
+
+        assertEquals(taskCount, state.countTasks(Task.TaskStatus.COMPLETED));
+        int retryCounts = 0;
+        for (int i = 0; i < taskCount; i++) {
+            assertTrue(state.getRetryCount("task-" + i) >= 1);
+            retryCounts += state.getRetryCount("task-" + i);
+        }
+        assertEquals(retries.get(), retryCounts);
+        assertCountsMatch(state.snapshot());
+    }
+
+    @Test
+    void snapshotsAreConsistentUnderConcurrentTransitions() throws Exception {
+        int taskCount = 512;
+        ProjectState state = stateWithTasks(taskCount);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<ProjectStateSnapshot> snapshots = new ArrayList<>();
+        List<Map<String, Task.TaskStatus>> copies = new ArrayList<>();
+
+        ExecutorService writers = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                writers.execute(() -> {
+                    while (running.get()) {
+                        for (int i = offset; i < taskCount; i += THREADS) {
+                            String id = "task-" + i;
+                            if (state.startTask(id)) {
+                                state.resetTask(id);
+                            }
+                        }
+                    }
+                });
+            }
+
+            for (int i = 0; i < 200; i++) {
+                ProjectStateSnapshot snapshot = state.snapshot();
+                assertCountsMatch(snapshot);
+                snapshots.add(snapshot);
+                copies.add(Map.copyOf(snapshot.getStatusMap()));
+            }
+        } finally {
+            running.set(false);
+            writers.shutdown();
+            assertTrue(writers.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        // 已发布的快照不随之后的状态转换变化
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(copies.get(i), Map.copyOf(snapshots.get(i).getStatusMap()));
+        }
+    }
+
+    @Test
+    void snapshotCompletesWhileWritersNeverPause() throws Exception {
+        ProjectState state = stateWithTasks(CHUNKS * ProjectState.CHUNK_SIZE);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(THREADS);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                writers.execute(() -> {
+                    while (running.get()) {
+                        for (int i = 0; i < CHUNKS * ProjectState.CHUNK_SIZE; i++) {
+                            String id = "task-" + i;
+                            if (state.startTask(id)) {
+                                state.resetTask(id);
+                            }
+                        }
+                    }
+                });
+            }
+
+            Future<Integer> snapshots = reader.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    assertCountsMatch(state.snapshot());
+                }
+                return 1_000;
+            });
+            assertEquals(1_000, snapshots.get(30, TimeUnit.SECONDS).intValue());
+        } finally {
+            running.set(false);
+            writers.shutdown();
+            reader.shutdown();
+            assertTrue(writers.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void unchangedStateReusesSnapshot() {
+        ProjectState state = stateWithTasks(10);
+        ProjectStateSnapshot first = state.snapshot();
+        assertTrue(first == state.snapshot());
+
+        state.startTask("task-3");
+        ProjectStateSnapshot second = state.snapshot();
+        assertFalse(first == second);
+        assertEquals(Task.TaskStatus.PENDING, first.getTaskStatus("task-3"));
+        assertEquals(Task.TaskStatus.RUNNING, second.getTaskStatus("task-3"));
+    }
+
+    @Test
+    void snapshotTasksKeepMetadataAfterUpdate() {
+        ProjectState state = new ProjectState("project");
+        // 依赖的任务在后面才添加
+        state.addTask(Task.create("b", "developer", List.of("a"), "build"));
+        state.addTask(Task.create("a", "analyst", List.of(), "analyse").withTimeout(500));
+        ProjectStateSnapshot before = state.snapshot();
+
+        state.updateTask(Task.create("b", "tester", List.of("c"), "test"));
+        ProjectStateSnapshot after = state.snapshot();
+
+        Task original = before.getTask("b");
+        assertEquals("developer", original.getRole());
+        assertEquals(List.of("a"), original.getDependencies());
+        assertEquals("build", original.getDescription());
+        assertEquals(500, before.getTask("a").getTimeoutMillis());
+
+        Task updated = after.getTask("b");
+        assertEquals("tester", updated.getRole());
+        assertEquals(List.of("c"), updated.getDependencies());
+        assertEquals("test", state.getTask("b").getDescription());
+        assertNull(state.getTask("c"));
+    }
+
+    @Test
+    void fullSaveKeepsLaterTransitionsForNextDelta() {
+        ProjectState state = stateWithTasks(3);
+        state.drainDelta();
+
+        // 完整保存：先清除标记再取快照，快照之后的转换必须出现在下一次增量中
+        state.drainUnflushed();
+        ProjectStateSnapshot saved = state.snapshot();
+        state.startTask("task-1");
+
+        ProjectStateDelta delta = state.drainDelta();
+        assertEquals(Task.TaskStatus.PENDING, saved.getTaskStatus("task-1"));
+        assertEquals(1, delta.getChangedTasks().size());
+        assertEquals("task-1", delta.getChangedTasks().get(0).getId());
+        assertEquals(Task.TaskStatus.RUNNING, delta.getChangedTasks().get(0).getStatus());
+        assertNull(state.drainDelta());
+    }
+
+    @Test
+    void failedFullSaveRestoresUnflushedTasks() {
+        ProjectState state = stateWithTasks(ProjectState.CHUNK_SIZE + 1);
+        long[] flushed = state.drainUnflushed();
+        assertNull(state.drainDelta());
+
+        state.restoreUnflushed(flushed);
+        assertEquals(ProjectState.CHUNK_SIZE + 1, state.drainDelta().getChangedTasks().size());
+    }
+
+    private static ProjectState stateWithTasks(int count) {
+        ProjectState state = new ProjectState("project");
+        for (int i = 0; i < count; i++) {
+            state.addTask(Task.create("task-" + i, "developer", List.of(), "task " + i));
+        }
+        return state;
+    }
+
+    /**
+     * 快照中的各状态计数与逐个任务统计的结果一致
+     */
+    private static void assertCountsMatch(ProjectStateSnapshot snapshot) {
+        Map<Task.TaskStatus, Integer> tally = new EnumMap<>(Task.TaskStatus.class);
+        snapshot.getStatusMap().values().forEach(status -> tally.merge(status, 1, Integer::sum));
+        int total = 0;
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            assertEquals(tally.getOrDefault(status, 0).intValue(), snapshot.countTasks(status), status.toString());
+            total += snapshot.countTasks(status);
+        }
+        assertEquals(snapshot.getTaskCount(), total);
+    }
+
+    private static void runConcurrently(int threads, Runnable body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    body.run();
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.aiteam.orchestrator.TestPlans.chain;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RedisProjectStateRepository的读写和发出的命令
+ * StringRedisTemplate由Mockito模拟，数据保存在内存中，流水线中的命令立即执行并按顺序记录
+ */
+class RedisProjectStateRepositoryTest {
+
+    private static final String BASE_KEY = "project:state:project:base";
+    private static final String TASKS_KEY = "project:state:project:tasks";
+    private static final String META_KEY = "project:state:project:meta";
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final List<String> commands = new ArrayList<>();
+    private RedisProjectStateRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(template.opsForHash()).thenReturn(hashOperations);
+        when(template.opsForValue()).thenReturn(valueOperations);
+
+        when(template.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, SessionCallback.class).execute(template);
+            return List.of();
+        });
+        doAnswer(invocation -> commands.add("MULTI")).when(template).multi();
+        when(template.exec()).thenAnswer(invocation -> {
+            commands.add("EXEC");
+            return List.of();
+        });
+        when(template.hasKey(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            return values.containsKey(key) || hashes.containsKey(key);
+        });
+        when(template.delete(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            commands.add("DEL " + String.join(" ", keys));
+            long deleted = 0;
+            for (String key : keys) {
+                if (values.remove(key) != null || hashes.remove(key) != null) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        });
+
+        doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            commands.add("SET " + key);
+            values.put(key, invocation.getArgument(1));
+            return null;
+        }).when(valueOperations).set(anyString(), anyString());
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+
+        doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            Map<String, String> fields = invocation.getArgument(1);
+            commands.add("HSET " + key + " " + new TreeMap<>(fields).keySet());
+            hashes.computeIfAbsent(key, k -> new HashMap<>()).putAll(fields);
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        when(hashOperations.entries(anyString())).thenAnswer(invocation ->
+            new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of())));
+        when(hashOperations.multiGet(anyString(), anyCollection())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            Collection<String> fields = invocation.getArgument(1);
+            commands.add("HMGET " + key + " " + fields);
+            Map<String, String> hash = hashes.getOrDefault(key, Map.of());
+            List<String> result = new ArrayList<>();
+            fields.forEach(field -> result.add(hash.get(field)));
+            return result;
+        });
+
+        repository = new RedisProjectStateRepository(template);
+    }
+
+    @Test
+    void fullSaveLoadsInSlotOrder() {
+        ProjectState state = chain("project", 100);
+        state.startTask("task-0");
+        state.completeTask("task-0");
+        repository.save(state);
+
+        assertEquals(List.of("MULTI", "DEL " + BASE_KEY + " " + TASKS_KEY + " " + META_KEY, "SET " + BASE_KEY,
+            "HSET " + META_KEY + " " + metaFields(), "EXEC"), commands);
+
+        ProjectState loaded = repository.load("project");
+        assertEquals(100, loaded.getTaskCount());
+        assertEquals(Task.TaskStatus.COMPLETED, loaded.getTaskStatus("task-0"));
+        assertEquals(List.of("task-41"), loaded.getTask("task-42").getDependencies());
+        List<Task> tasks = loaded.snapshot().getTasks();
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            assertEquals("task-" + slot, tasks.get(slot).getId());
+        }
+        assertNull(repository.load("missing"));
+    }
+
+    @Test
+    void deltaWritesOnlyChangedTasksAndMeta() {
+        ProjectState state = chain("project", 10);
+        repository.save(state);
+        commands.clear();
+
+        state.startTask("task-5");
+        state.addTask(Task.create("extra", "tester", List.of("task-9"), "extra"));
+        repository.saveDelta(state, state.drainDelta());
+
+        assertEquals(List.of("MULTI", "HSET " + TASKS_KEY + " [extra, task-5]", "HSET " + META_KEY + " " + metaFields(),
+            "EXEC"), commands);
+        assertTrue(hashes.get(TASKS_KEY).get("task-5").startsWith("5:"));
+        assertTrue(hashes.get(TASKS_KEY).get("extra").startsWith("10:"));
+
+        ProjectState loaded = repository.load("project");
+        assertEquals(11, loaded.getTaskCount());
+        assertEquals(Task.TaskStatus.RUNNING, loaded.getTaskStatus("task-5"));
+        assertEquals("extra", loaded.snapshot().getTasks().get(10).getId());
+    }
+
+    @Test
+    void loadTasksReadsChangedTasksThroughHmget() {
+        ProjectState state = chain("project", 10);
+        repository.save(state);
+        state.startTask("task-1");
+        repository.saveDelta(state, state.drainDelta());
+        commands.clear();
+
+        Map<String, Task> tasks = repository.loadTasks("project", List.of("task-1", "missing", "task-2"));
+
+        assertEquals(List.of("HMGET " + TASKS_KEY + " [task-1, missing, task-2]"), commands);
+        assertEquals(List.of("task-1", "task-2"), new ArrayList<>(tasks.keySet()));
+        assertEquals(Task.TaskStatus.RUNNING, tasks.get("task-1").getStatus());
+        assertEquals(Task.TaskStatus.PENDING, tasks.get("task-2").getStatus());
+    }
+
+    @Test
+    void resaveWithFewerTasksRemovesOldFields() {
+        ProjectState state = chain("project", 10);
+        repository.save(state);
+        state.startTask("task-8");
+        repository.saveDelta(state, state.drainDelta());
+        assertTrue(hashes.get(TASKS_KEY).containsKey("task-8"));
+
+        repository.save(chain("project", 4));
+
+        assertFalse(hashes.containsKey(TASKS_KEY));
+        assertEquals(4, repository.load("project").getTaskCount());
+        assertTrue(repository.loadTasks("project", List.of("task-8")).isEmpty());
+        assertEquals("4", hashes.get(META_KEY).get("taskCount"));
+    }
+
+    /**
+     * meta Hash的字段，按名称排序
+     */
+    private static Set<String> metaFields() {
+        Set<String> fields = new TreeSet<>(List.of("lastUpdated", "overallStatus", "taskCount", "version"));
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            fields.add("count:" + status.name());
+        }
+        return fields;
+    }
+}
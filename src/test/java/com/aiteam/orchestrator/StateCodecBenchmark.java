@@ -0,0 +1,175 @@
+package com.aiteam.orchestrator;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * StateCodec与JSON(Jackson)的编码大小和编解码耗时对比：按任务编码（增量保存），以及整个项目编码（完整保存）
+ * 10k个任务，角色、依赖数和描述长度接近Dispatcher生成的计划；JSON使用与Spring Boot默认相同的ISO时间格式
+ * 运行方式: mvn test -Pbenchmark
+ */
+class StateCodecBenchmark {
+
+    private static final int TASK_COUNT = 10_000;
+    private static final int ROUNDS = 5;
+    private static final String[] ROLES = {"[产品]", "[前端]", "[后端]", "[测试]", "[运维]"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .addMixIn(Task.class, TaskMixin.class);
+
+    @Test
+    void compareWithJson() throws IOException {
+        List<Task> tasks = createTasks();
+
+        long codecBytes = 0;
+        long jsonBytes = 0;
+        for (Task task : tasks) {
+            codecBytes += StateCodec.encodeTask(task).length;
+            jsonBytes += objectMapper.writeValueAsBytes(task).length;
+        }
+        Task sample = tasks.get(TASK_COUNT / 2);
+        assertEquals(sample.getDependencies(), StateCodec.decodeTask(StateCodec.encodeTask(sample)).getDependencies());
+        assertEquals(sample.getDependencies(),
+            objectMapper.readValue(objectMapper.writeValueAsBytes(sample), Task.class).getDependencies());
+
+        // 预热
+        measureCodec(tasks);
+        measureJson(tasks);
+        long[] codec = new long[2];
+        long[] json = new long[2];
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] codecRound = measureCodec(tasks);
+            long[] jsonRound = measureJson(tasks);
+            for (int i = 0; i < 2; i++) {
+                codec[i] += codecRound[i];
+                json[i] += jsonRound[i];
+            }
+        }
+
+        System.out.printf("Task encoding: %d tasks, average of %d rounds%n", TASK_COUNT, ROUNDS);
+        System.out.printf("  %-10s %8s %12s %12s%n", "format", "bytes", "encode ns", "decode ns");
+        report("StateCodec", codecBytes, codec);
+        report("JSON", jsonBytes, json);
+        System.out.printf("  StateCodec size is %.1f%% of JSON%n", codecBytes * 100.0 / jsonBytes);
+    }
+
+    @Test
+    void compareStateWithJson() throws IOException {
+        ProjectState state = new ProjectState("project");
+        createTasks().forEach(state::addTask);
+        ProjectStateSnapshot snapshot = state.snapshot();
+        List<Task> tasks = snapshot.getTasks();
+
+        byte[] codecEncoded = StateCodec.encodeState(snapshot);
+        byte[] jsonEncoded = objectMapper.writeValueAsBytes(tasks);
+        assertEquals(TASK_COUNT, StateCodec.decodeState(codecEncoded).getTaskCount());
+        assertEquals(TASK_COUNT, objectMapper.readValue(jsonEncoded, Task[].class).length);
+
+        long[] codec = new long[2];
+        long[] json = new long[2];
+        for (int round = 0; round <= ROUNDS; round++) {
+            long startedAt = System.nanoTime();
+            byte[] encoded = StateCodec.encodeState(snapshot);
+            long encodeNanos = System.nanoTime() - startedAt;
+            startedAt = System.nanoTime();
+            StateCodec.decodeState(encoded);
+            long decodeNanos = System.nanoTime() - startedAt;
+
+            startedAt = System.nanoTime();
+            byte[] jsonBytes = objectMapper.writeValueAsBytes(tasks);
+            long jsonEncodeNanos = System.nanoTime() - startedAt;
+            startedAt = System.nanoTime();
+            objectMapper.readValue(jsonBytes, Task[].class);
+            long jsonDecodeNanos = System.nanoTime() - startedAt;
+
+            // 第0轮为预热
+            if (round > 0) {
+                codec[0] += encodeNanos;
+                codec[1] += decodeNanos;
+                json[0] += jsonEncodeNanos;
+                json[1] += jsonDecodeNanos;
+            }
+        }
+
+        System.out.printf("State encoding: %d tasks in one message, average of %d rounds, per task%n", TASK_COUNT, ROUNDS);
+        System.out.printf("  %-10s %8s %12s %12s%n", "format", "bytes", "encode ns", "decode ns");
+        report("StateCodec", codecEncoded.length, codec);
+        report("JSON", jsonEncoded.length, json);
+        System.out.printf("  StateCodec size is %.1f%% of JSON%n", codecEncoded.length * 100.0 / jsonEncoded.length);
+    }
+
+    private static long[] measureCodec(List<Task> tasks) {
+        List<byte[]> encoded = new ArrayList<>(tasks.size());
+        long startedAt = System.nanoTime();
+        for (Task task : tasks) {
+            encoded.add(StateCodec.encodeTask(task));
+        }
+        long encodeNanos = System.nanoTime() - startedAt;
+        startedAt = System.nanoTime();
+        for (byte[] data : encoded) {
+            StateCodec.decodeTask(data);
+        }
+        return new long[]{encodeNanos, System.nanoTime() - startedAt};
+    }
+
+    private long[] measureJson(List<Task> tasks) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(tasks.size());
+        long startedAt = System.nanoTime();
+        for (Task task : tasks) {
+            encoded.add(objectMapper.writeValueAsBytes(task));
+        }
+        long encodeNanos = System.nanoTime() - startedAt;
+        startedAt = System.nanoTime();
+        for (byte[] data : encoded) {
+            objectMapper.readValue(data, Task.class);
+        }
+        return new long[]{encodeNanos, System.nanoTime() - startedAt};
+    }
+
+    private static void report(String format, long bytes, long[] nanos) {
+        System.out.printf("  %-10s %8d %12.0f %12.0f%n", format, bytes / TASK_COUNT,
+            (double) nanos[0] / ROUNDS / TASK_COUNT, (double) nanos[1] / ROUNDS / TASK_COUNT);
+    }
+
+    private static List<Task> createTasks() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 9, 0);
+        List<Task> tasks = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            List<String> dependencies = new ArrayList<>();
+            for (int d = 1; d <= i % 4 && d <= i; d++) {
+                dependencies.add("task-" + (i - d));
+            }
+            tasks.add(new Task("task-" + i, ROLES[i % ROLES.length], dependencies,
+                Task.TaskStatus.values()[i % Task.TaskStatus.values().length], i % 3,
+                createdAt.plusSeconds(i), createdAt.plusSeconds(i + 30).plusNanos(i * 1000L),
+                "完成第" + i + "个子任务：根据需求文档实现对应模块并补充单元测试", i % 2 == 0 ? 0 : 60_000));
+        }
+        return tasks;
+    }
+
+    /**
+     * Task没有无参构造方法，JSON解码通过混入的构造方法创建
+     */
+    abstract static class TaskMixin {
+        @JsonCreator
+        TaskMixin(@JsonProperty("id") String id, @JsonProperty("role") String role,
+                  @JsonProperty("dependencies") List<String> dependencies,
+                  @JsonProperty("status") Task.TaskStatus status, @JsonProperty("retryCount") int retryCount,
+                  @JsonProperty("createdAt") LocalDateTime createdAt, @JsonProperty("updatedAt") LocalDateTime updatedAt,
+                  @JsonProperty("description") String description, @JsonProperty("timeoutMillis") long timeoutMillis) {
+        }
+    }
+}
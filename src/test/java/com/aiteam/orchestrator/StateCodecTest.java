@@ -0,0 +1,114 @@
+package com.aiteam.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StateCodec的往返编码和对损坏数据的拒绝
+ */
+class StateCodecTest {
+
+    @Test
+    void taskRoundTripsAllFields() {
+        Task task = new Task("task-1", "[后端]", List.of("task-0", "task-1"), Task.TaskStatus.RETRYING, 2,
+            LocalDateTime.of(2024, 5, 1, 8, 30, 0, 123), LocalDateTime.of(2024, 5, 1, 8, 29, 59), "实现接口", 30_000);
+
+        Task decoded = StateCodec.decodeTask(StateCodec.encodeTask(task));
+        assertEquals(task.getId(), decoded.getId());
+        assertEquals(task.getRole(), decoded.getRole());
+        assertEquals(task.getDependencies(), decoded.getDependencies());
+        assertEquals(task.getStatus(), decoded.getStatus());
+        assertEquals(task.getRetryCount(), decoded.getRetryCount());
+        assertEquals(task.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(task.getUpdatedAt(), decoded.getUpdatedAt());
+        assertEquals(task.getDescription(), decoded.getDescription());
+        assertEquals(task.getTimeoutMillis(), decoded.getTimeoutMillis());
+    }
+
+    @Test
+    void nullFieldsRoundTrip() {
+        Task task = new Task("task-1", null, List.of(), Task.TaskStatus.PENDING, 0, null, null, null);
+
+        Task decoded = StateCodec.decodeTask(StateCodec.encodeTask(task));
+        assertNull(decoded.getRole());
+        assertNull(decoded.getCreatedAt());
+        assertNull(decoded.getUpdatedAt());
+        assertNull(decoded.getDescription());
+    }
+
+    @Test
+    void stateRoundTripsInSlotOrderWithSharedStrings() {
+        ProjectState state = TestPlans.chain("project", 100);
+        state.startTask("task-0");
+        state.completeTask("task-0");
+
+        byte[] encoded = StateCodec.encodeState(state);
+        ProjectState decoded = StateCodec.decodeState(encoded);
+        assertEquals("project", decoded.getProjectId());
+        assertEquals(100, decoded.getTaskCount());
+        assertEquals(Task.TaskStatus.COMPLETED, decoded.getTaskStatus("task-0"));
+        assertEquals(List.of("task-41"), decoded.getTask("task-42").getDependencies());
+        assertEquals("task-99", decoded.snapshot().getTasks().get(99).getId());
+
+        // 角色名和依赖的任务ID在整个状态中只保存一次
+        int separate = 0;
+        for (Task task : state.snapshot().getTasks()) {
+            separate += StateCodec.encodeTask(task).length;
+        }
+        assertTrue(encoded.length < separate);
+    }
+
+    @Test
+    void planRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 8, 30, 0, 123);
+        ProjectPlan plan = new ProjectPlan("project", "标题", null, TestPlans.chain("project", 3).snapshot().getTasks(),
+            createdAt, null);
+
+        ProjectPlan decoded = StateCodec.decodePlan(StateCodec.encodePlan(plan));
+        assertEquals("project", decoded.getProjectId());
+        assertEquals("标题", decoded.getTitle());
+        assertNull(decoded.getDescription());
+        assertEquals(3, decoded.getTasks().size());
+        assertEquals(List.of("task-1"), decoded.getTasks().get(2).getDependencies());
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertNull(decoded.getUpdatedAt());
+    }
+
+    @Test
+    void messageKindMustMatch() {
+        byte[] state = StateCodec.encodeState(TestPlans.chain("project", 2));
+
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodeTask(state));
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodePlan(state));
+    }
+
+    @Test
+    void trailingBytesAreRejected() {
+        byte[] encoded = StateCodec.encodeTask(Task.create("task-1", "[测试]", List.of(), "test"));
+        byte[] padded = Arrays.copyOf(encoded, encoded.length + 1);
+        byte[] state = StateCodec.encodeState(TestPlans.chain("project", 2));
+        byte[] paddedState = Arrays.copyOf(state, state.length + 1);
+
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodeTask(padded));
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodeState(paddedState));
+    }
+
+    @Test
+    void truncatedDataAndUnknownVersionsAreRejected() {
+        byte[] encoded = StateCodec.encodeTask(Task.create("task-1", "[测试]", List.of("task-0"), "test"));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+        byte[] future = encoded.clone();
+        future[0] = (byte) (StateCodec.FORMAT_VERSION + 1);
+
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodeTask(truncated));
+        assertThrows(StateCodec.StateCodecException.class, () -> StateCodec.decodeTask(future));
+    }
+}
@@ -0,0 +1,24 @@
+package com.aiteam.orchestrator;
+
+import java.util.List;
+
+/**
+ * 测试和基准测试共用的项目状态构造方法
+ */
+final class TestPlans {
+
+    private TestPlans() {
+    }
+
+    /**
+     * 每个任务依赖前一个任务的链式计划
+     */
+    static ProjectState chain(String projectId, int taskCount) {
+        ProjectState state = new ProjectState(projectId);
+        for (int i = 0; i < taskCount; i++) {
+            state.addTask(Task.create("task-" + i, "developer",
+                i == 0 ? List.of() : List.of("task-" + (i - 1)), "task " + i));
+        }
+        return state;
+    }
+}
@@ -5,8 +5,8 @@ echo "🚀 正在启动 AgentCorp SaaS Platform..."
 
 # 检查Java版本
 JAVA_VERSION=$(java -version 2>&1 | head -n 1 | cut -d'"' -f2 | cut -d'.' -f1)
-if [ "$JAVA_VERSION" -lt 8 ]; then
-    echo "❌ 错误: 需要Java 8或更高版本，当前版本: $(java -version 2>&1 | head -n 1)"
+if [ "$JAVA_VERSION" -lt 21 ]; then
+    echo "❌ 错误: 需要Java 21或更高版本，当前版本: $(java -version 2>&1 | head -n 1)"
     exit 1
 fi
 